@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.compute;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.azurecompute.arm.util.Caches.getUnchecked;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.azurecompute.arm.AzureComputeApi;
+import org.jclouds.azurecompute.arm.domain.Location;
+import org.jclouds.azurecompute.arm.domain.ResourceProviderMetaData;
+import org.jclouds.azurecompute.arm.domain.VMSize;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Locations and VM sizes shared by the compute service. Both change rarely, so they are fetched once per session
+ * interval and indexed by name instead of being listed again for every node or hardware profile.
+ */
+@Singleton
+public class AzureComputeCatalog {
+
+   private final Supplier<LocationIndex> locations;
+   private final LoadingCache<String, Map<String, VMSize>> vmSizes;
+
+   @Inject
+   AzureComputeCatalog(final AzureComputeApi api, @Named(Constants.PROPERTY_SESSION_INTERVAL) long sessionInterval) {
+      this.locations = Suppliers.memoizeWithExpiration(new Supplier<LocationIndex>() {
+         @Override
+         public LocationIndex get() {
+            ImmutableSet.Builder<String> vmLocations = ImmutableSet.builder();
+            for (ResourceProviderMetaData metadata : api.getResourceProviderApi().get("Microsoft.Compute")) {
+               if (metadata.resourceType().equals("virtualMachines")) {
+                  vmLocations.addAll(metadata.locations());
+               }
+            }
+            return new LocationIndex(api.getLocationApi().list(), vmLocations.build());
+         }
+      }, sessionInterval, SECONDS);
+      this.vmSizes = CacheBuilder.newBuilder().expireAfterWrite(sessionInterval, SECONDS)
+            .build(new CacheLoader<String, Map<String, VMSize>>() {
+               @Override
+               public Map<String, VMSize> load(String location) {
+                  Map<String, VMSize> sizes = Maps.newLinkedHashMap();
+                  for (VMSize size : api.getVMSizeApi(location).list()) {
+                     if (!sizes.containsKey(size.name())) {
+                        sizes.put(size.name(), size);
+                     }
+                  }
+                  return ImmutableMap.copyOf(sizes);
+               }
+            });
+   }
+
+   /**
+    * @return the locations where virtual machines can be deployed
+    */
+   public List<Location> vmLocations() {
+      return locations.get().vmLocations;
+   }
+
+   /**
+    * @return the location with the given name, or null if there is none
+    */
+   public Location location(String name) {
+      return locations.get().byName.get(name);
+   }
+
+   /**
+    * @return the location with the given display name, or null if there is none
+    */
+   public Location locationByDisplayName(String displayName) {
+      return locations.get().byDisplayName.get(displayName);
+   }
+
+   /**
+    * @return the VM sizes available in the given location
+    */
+   public Collection<VMSize> vmSizes(String location) {
+      return getUnchecked(vmSizes, location).values();
+   }
+
+   /**
+    * @return the VM size with the given name in the given location, or null if there is none
+    */
+   public VMSize vmSize(String location, String name) {
+      return getUnchecked(vmSizes, location).get(name);
+   }
+
+   private static final class LocationIndex {
+      private final Map<String, Location> byName;
+      private final Map<String, Location> byDisplayName;
+      private final List<Location> vmLocations;
+
+      private LocationIndex(List<Location> locations, Set<String> vmDisplayNames) {
+         Map<String, Location> byName = Maps.newLinkedHashMap();
+         Map<String, Location> byDisplayName = Maps.newLinkedHashMap();
+         ImmutableList.Builder<Location> vmLocations = ImmutableList.builder();
+         for (Location location : locations) {
+            if (!byName.containsKey(location.name())) {
+               byName.put(location.name(), location);
+            }
+            if (!byDisplayName.containsKey(location.displayName())) {
+               byDisplayName.put(location.displayName(), location);
+            }
+            if (vmDisplayNames.contains(location.displayName())) {
+               vmLocations.add(location);
+            }
+         }
+         this.byName = ImmutableMap.copyOf(byName);
+         this.byDisplayName = ImmutableMap.copyOf(byDisplayName);
+         this.vmLocations = vmLocations.build();
+      }
+   }
+}
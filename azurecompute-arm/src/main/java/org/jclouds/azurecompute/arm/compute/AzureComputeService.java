@@ -17,6 +17,7 @@
 package org.jclouds.azurecompute.arm.compute;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.azurecompute.arm.config.AzureComputeProperties.MAX_CONCURRENT_REQUESTS;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_SUSPENDED;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_TERMINATED;
@@ -55,8 +56,10 @@ import org.jclouds.compute.strategy.SuspendNodeStrategy;
 import org.jclouds.domain.Credentials;
 import org.jclouds.domain.Location;
 import org.jclouds.azurecompute.arm.functions.CleanupResources;
+import org.jclouds.azurecompute.arm.util.ParallelTransform;
 import org.jclouds.scriptbuilder.functions.InitAdminAccess;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
@@ -65,6 +68,8 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 @Singleton
 public class AzureComputeService extends BaseComputeService {
    protected final CleanupResources cleanupResources;
+   private final ListeningExecutorService userExecutor;
+   private final int maxConcurrentRequests;
 
    @Inject
    protected AzureComputeService(ComputeServiceContext context, Map<String, Credentials> credentialStore,
@@ -84,21 +89,27 @@ public class AzureComputeService extends BaseComputeService {
                                 @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
                                  CleanupResources cleanupResources,
                                 Optional<ImageExtension> imageExtension,
-                                Optional<SecurityGroupExtension> securityGroupExtension) {
+                                Optional<SecurityGroupExtension> securityGroupExtension,
+                                @Named(MAX_CONCURRENT_REQUESTS) int maxConcurrentRequests) {
       super(context, credentialStore, images, sizes, locations, listNodesStrategy, getImageStrategy,
               getNodeMetadataStrategy, runNodesAndAddToSetStrategy, rebootNodeStrategy, destroyNodeStrategy,
               startNodeStrategy, stopNodeStrategy, templateBuilderProvider, templateOptionsProvider, nodeRunning,
               nodeTerminated, nodeSuspended, initScriptRunnerFactory, initAdminAccess, runScriptOnNodeFactory,
               persistNodeCredentials, timeouts, userExecutor, imageExtension, securityGroupExtension);
       this.cleanupResources = checkNotNull(cleanupResources, "cleanupResources");
+      this.userExecutor = userExecutor;
+      this.maxConcurrentRequests = maxConcurrentRequests;
 
    }
 
    @Override
    protected void cleanUpIncidentalResourcesOfDeadNodes(Set<? extends NodeMetadata> deadNodes) {
-      for (NodeMetadata deadNode : deadNodes) {
-         cleanupResources.apply(deadNode.getId());
-      }
+      ParallelTransform.transform(deadNodes, new Function<NodeMetadata, Boolean>() {
+         @Override
+         public Boolean apply(NodeMetadata deadNode) {
+            return cleanupResources.apply(deadNode.getId());
+         }
+      }, userExecutor, maxConcurrentRequests);
    }
 
 }
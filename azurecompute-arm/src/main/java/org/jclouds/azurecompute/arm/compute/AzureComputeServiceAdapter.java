@@ -35,13 +35,11 @@ import org.jclouds.azurecompute.arm.compute.config.AzureComputeServiceContextMod
 import org.jclouds.azurecompute.arm.compute.functions.DeploymentToVMDeployment;
 import org.jclouds.azurecompute.arm.compute.functions.VMImageToImage;
 import org.jclouds.azurecompute.arm.compute.predicates.IsDeploymentInRegions;
+import org.jclouds.azurecompute.arm.compute.strategy.ListImagesParallel;
 import org.jclouds.azurecompute.arm.domain.Deployment;
 import org.jclouds.azurecompute.arm.domain.DeploymentBody;
 import org.jclouds.azurecompute.arm.domain.DeploymentProperties;
 import org.jclouds.azurecompute.arm.domain.Location;
-import org.jclouds.azurecompute.arm.domain.Offer;
-import org.jclouds.azurecompute.arm.domain.ResourceProviderMetaData;
-import org.jclouds.azurecompute.arm.domain.SKU;
 import org.jclouds.azurecompute.arm.domain.StorageService;
 import org.jclouds.azurecompute.arm.domain.VMDeployment;
 import org.jclouds.azurecompute.arm.domain.VMHardware;
@@ -63,7 +61,6 @@ import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.FluentIterable;
@@ -91,11 +88,15 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<VMDeplo
    private final Supplier<Set<String>> regionIds;
    private final IsDeploymentInRegions isDeploymentInRegions;
    private final DeploymentToVMDeployment deploymentToVMDeployment;
+   private final ListImagesParallel listImagesParallel;
+   private final AzureComputeCatalog catalog;
+   private final BlobHelper blobHelper;
 
    @Inject
    AzureComputeServiceAdapter(final AzureComputeApi api, final AzureComputeConstants azureComputeConstants,
          CleanupResources cleanupResources, @Region Supplier<Set<String>> regionIds,
-         IsDeploymentInRegions isDeploymentInRegions, DeploymentToVMDeployment deploymentToVMDeployment) {
+         IsDeploymentInRegions isDeploymentInRegions, DeploymentToVMDeployment deploymentToVMDeployment,
+         ListImagesParallel listImagesParallel, AzureComputeCatalog catalog, BlobHelper blobHelper) {
       this.api = api;
       this.azureComputeConstants = azureComputeConstants;
       this.azureGroup = azureComputeConstants.azureResourceGroup();
@@ -106,6 +107,9 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<VMDeplo
       this.regionIds = regionIds;
       this.isDeploymentInRegions = isDeploymentInRegions;
       this.deploymentToVMDeployment = deploymentToVMDeployment;
+      this.listImagesParallel = listImagesParallel;
+      this.catalog = catalog;
+      this.blobHelper = blobHelper;
    }
 
    @Override
@@ -173,7 +177,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<VMDeplo
       for (Location location : locations){
          locationIds.add(location.name());
 
-         Iterable<VMSize> vmSizes = api.getVMSizeApi(location.name()).list();
+         Iterable<VMSize> vmSizes = catalog.vmSizes(location.name());
 
          for (VMSize vmSize : vmSizes){
             VMHardware hwProfile = VMHardware.create(
@@ -205,48 +209,22 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<VMDeplo
       //      }
    }
 
-   private List<VMImage> getImagesFromPublisher(String publisherName, String location) {
-      List<VMImage> osImagesRef = Lists.newArrayList();
-      OSImageApi osImageApi = api.getOSImageApi(location);
-      Iterable<Offer> offerList = osImageApi.listOffers(publisherName);
-
-      for (Offer offer : offerList) {
-         Iterable<SKU> skuList = osImageApi.listSKUs(publisherName, offer.name());
-
-         for (SKU sku : skuList) {
-            Iterable<Version> versionList = osImageApi.listVersions(publisherName, offer.name(), sku.name());
-            for (Version version : versionList) {
-               VMImage vmImage = VMImage.create(publisherName, offer.name(), sku.name(), version.name(), location);
-               osImagesRef.add(vmImage);
-            }
-         }
-      }
-      return osImagesRef;
-   }
-
-   private List<VMImage> listImagesByLocation(String location) {
-      final List<VMImage> osImages = Lists.newArrayList();
-      Iterable<String> publishers = Splitter.on(',').trimResults().omitEmptyStrings().split(this.azureComputeConstants.azureImagePublishers());
-      for (String publisher : publishers) {
-         osImages.addAll(getImagesFromPublisher(publisher, location));
-      }
-      return osImages;
-   }
-
    @Override
    public Iterable<VMImage> listImages() {
 
-      final List<VMImage> osImages = Lists.newArrayList();
-
-      for (Location location : listLocations()){
-         osImages.addAll(listImagesByLocation(location.name()));
-      }
+      final List<VMImage> osImages = Lists.newArrayList(listImagesParallel.apply(
+            Iterables.transform(listLocations(), new Function<Location, String>() {
+               @Override
+               public String apply(Location location) {
+                  return location.name();
+               }
+            })));
       // list custom images
       List<StorageService> storages = api.getStorageAccountApi(azureGroup).list();
       for (StorageService storage : storages) {
          String name = storage.name();
-         String key = api.getStorageAccountApi(azureGroup).getKeys(name).key1();
-            List<VMImage> images = BlobHelper.getImages("jclouds", azureGroup, storage.name(), key,
+         String key = blobHelper.storageKey(azureGroup, name);
+            List<VMImage> images = blobHelper.getImages("jclouds", azureGroup, storage.name(), key,
                   "custom", storage.location());
             osImages.addAll(images);
       }
@@ -257,8 +235,8 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<VMDeplo
    public VMImage getImage(final String id) {
       VMImage image = VMImageToImage.decodeFieldsFromUniqueId(id);
       if (image.custom()) {
-         String key = api.getStorageAccountApi(azureGroup).getKeys(image.storage()).key1();
-         if (BlobHelper.customImageExists(image.storage(), key))
+         String key = blobHelper.storageKey(azureGroup, image.storage());
+         if (blobHelper.customImageExists(image.storage(), key))
             return image;
          else
             return null;
@@ -280,27 +258,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<VMDeplo
 
    @Override
    public Iterable<Location> listLocations() {
-      final Iterable<String> vmLocations = FluentIterable.from(api.getResourceProviderApi().get("Microsoft.Compute"))
-              .filter(new Predicate<ResourceProviderMetaData>() {
-                 @Override
-                 public boolean apply(ResourceProviderMetaData input) {
-                    return input.resourceType().equals("virtualMachines");
-                 }
-              })
-              .transformAndConcat(new Function<ResourceProviderMetaData, Iterable<String>>() {
-                 @Override
-                 public Iterable<String> apply(ResourceProviderMetaData resourceProviderMetaData) {
-                    return resourceProviderMetaData.locations();
-                 }
-              });
-
-      List<Location> locations = FluentIterable.from(api.getLocationApi().list())
-              .filter(new Predicate<Location>() {
-                 @Override
-                 public boolean apply(Location location) {
-                    return Iterables.contains(vmLocations, location.displayName());
-                 }
-              })
+      return FluentIterable.from(catalog.vmLocations())
               .filter(new Predicate<Location>() {
                  @Override
                  public boolean apply(Location location) {
@@ -308,8 +266,6 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<VMDeplo
                  }
               })
               .toList();
-
-      return locations;
    }
 
    @Override
@@ -344,19 +300,17 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<VMDeplo
 
    @Override
    public Iterable<VMDeployment> listNodes() {
-      return FluentIterable.from(api.getDeploymentApi(azureGroup).list())
+      return deploymentToVMDeployment.transform(FluentIterable.from(api.getDeploymentApi(azureGroup).list())
               .filter(isDeploymentInRegions)
               .filter(new Predicate<Deployment>() {
                  @Override
                  public boolean apply(Deployment deployment) {
                     Value storageAccountNameValue = deployment.properties().parameters().get("storageAccountName");
                     String storageAccountName = storageAccountNameValue.value();
-                    String key = api.getStorageAccountApi(azureGroup).getKeys(storageAccountName).key1();
-                    return !BlobHelper.customImageExists(storageAccountName, key);
+                    String key = blobHelper.storageKey(azureGroup, storageAccountName);
+                    return !blobHelper.customImageExists(storageAccountName, key);
                  }
-              })
-              .transform(deploymentToVMDeployment)
-              .toList();
+              }));
    }
 
    @Override
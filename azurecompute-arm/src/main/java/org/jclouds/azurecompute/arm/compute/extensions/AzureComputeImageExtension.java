@@ -30,7 +30,6 @@ import org.jclouds.azurecompute.arm.AzureComputeApi;
 import org.jclouds.azurecompute.arm.compute.config.AzureComputeServiceContextModule;
 import org.jclouds.azurecompute.arm.compute.functions.VMImageToImage;
 import org.jclouds.azurecompute.arm.domain.ResourceDefinition;
-import org.jclouds.azurecompute.arm.domain.StorageServiceKeys;
 import org.jclouds.azurecompute.arm.domain.VMImage;
 import org.jclouds.azurecompute.arm.domain.VirtualMachine;
 import static java.lang.String.format;
@@ -60,6 +59,7 @@ public class AzureComputeImageExtension implements ImageExtension {
    private final Predicate<String> nodeSuspendedPredicate;
    private final AzureComputeConstants azureComputeConstants;
    private final VMImageToImage imageReferenceToImage;
+   private final BlobHelper blobHelper;
    public static final String CONTAINER_NAME = "jclouds";
    public static final String CUSTOM_IMAGE_PREFIX = "#";
 
@@ -69,7 +69,7 @@ public class AzureComputeImageExtension implements ImageExtension {
                               @Named(TIMEOUT_NODE_SUSPENDED) Predicate<String> nodeSuspendedPredicate,
                               final AzureComputeServiceContextModule.AzureComputeConstants azureComputeConstants,
                               @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
-                              VMImageToImage imageReferenceToImage) {
+                              VMImageToImage imageReferenceToImage, BlobHelper blobHelper) {
       this.userExecutor = userExecutor;
       this.group = azureComputeConstants.azureResourceGroup();
       this.imageReferenceToImage = imageReferenceToImage;
@@ -77,6 +77,7 @@ public class AzureComputeImageExtension implements ImageExtension {
       this.nodeSuspendedPredicate = nodeSuspendedPredicate;
       this.azureComputeConstants = azureComputeConstants;
       this.api = api;
+      this.blobHelper = blobHelper;
    }
 
    @Override
@@ -143,12 +144,12 @@ public class AzureComputeImageExtension implements ImageExtension {
 
       VMImage image = VMImageToImage.decodeFieldsFromUniqueId(id);
       if (image.custom()) {
-         StorageServiceKeys keys = api.getStorageAccountApi(image.group()).getKeys(image.storage());
+         String key = blobHelper.storageKey(image.group(), image.storage());
 
          // This removes now all the images in this storage. At least in theory, there should be just one and if there is
          // more, they should be copies of each other.
-         BlobHelper.deleteContainerIfExists(image.storage(), keys.key1(), "system");
-         return !BlobHelper.customImageExists(image.storage(), keys.key1());
+         blobHelper.deleteContainerIfExists(image.storage(), key, "system");
+         return !blobHelper.customImageExists(image.storage(), key);
       }
 
       return false;
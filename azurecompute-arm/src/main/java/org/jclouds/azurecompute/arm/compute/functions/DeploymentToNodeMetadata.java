@@ -23,7 +23,7 @@ import java.util.Set;
 import javax.inject.Inject;
 
 import com.google.common.collect.Sets;
-import org.jclouds.azurecompute.arm.AzureComputeApi;
+import org.jclouds.azurecompute.arm.compute.AzureComputeCatalog;
 import org.jclouds.azurecompute.arm.domain.ComputeNode;
 import org.jclouds.azurecompute.arm.domain.Deployment;
 import org.jclouds.azurecompute.arm.domain.ImageReference;
@@ -83,7 +83,7 @@ public class DeploymentToNodeMetadata implements Function<VMDeployment, NodeMeta
       return (Deployment.ProvisioningState) GetEnumValue.fromValueOrDefault(text, Deployment.ProvisioningState.UNRECOGNIZED);
    }
 
-   private final AzureComputeApi api;
+   private final AzureComputeCatalog catalog;
 
    private final LocationToLocation locationToLocation;
 
@@ -97,7 +97,7 @@ public class DeploymentToNodeMetadata implements Function<VMDeployment, NodeMeta
 
    @Inject
    DeploymentToNodeMetadata(
-           AzureComputeApi api,
+           AzureComputeCatalog catalog,
            LocationToLocation locationToLocation,
            GroupNamingConvention.Factory namingConvention, VMImageToImage vmImageToImage,
            VMHardwareToHardware vmHardwareToHardware, Map<String, Credentials> credentialStore) {
@@ -107,7 +107,7 @@ public class DeploymentToNodeMetadata implements Function<VMDeployment, NodeMeta
       this.vmImageToImage = vmImageToImage;
       this.vmHardwareToHardware = vmHardwareToHardware;
       this.credentialStore = credentialStore;
-      this.api = api;
+      this.catalog = catalog;
    }
 
    @Override
@@ -192,17 +192,9 @@ public class DeploymentToNodeMetadata implements Function<VMDeployment, NodeMeta
          }
       }
 
-      org.jclouds.azurecompute.arm.domain.Location myLocation = null;
       if (from.virtualMachine() != null) {
          String locationName = from.virtualMachine().location();
-         List<org.jclouds.azurecompute.arm.domain.Location> locations = api.getLocationApi().list();
-
-         for (org.jclouds.azurecompute.arm.domain.Location location : locations) {
-            if (location.name().equals(locationName)) {
-               myLocation = location;
-               break;
-            }
-         }
+         org.jclouds.azurecompute.arm.domain.Location myLocation = catalog.location(locationName);
          Location jLocation = this.locationToLocation.apply(myLocation);
          builder.location(jLocation);
 
@@ -215,15 +207,8 @@ public class DeploymentToNodeMetadata implements Function<VMDeployment, NodeMeta
             builder.imageId(image.getId());
          }
 
-         VMSize myVMSize = null;
          String vmSizeName = from.virtualMachine().properties().hardwareProfile().vmSize();
-         List<VMSize> vmSizes = api.getVMSizeApi(locationName).list();
-         for (VMSize vmSize : vmSizes) {
-            if (vmSize.name().equals(vmSizeName)) {
-               myVMSize = vmSize;
-               break;
-            }
-         }
+         VMSize myVMSize = catalog.vmSize(locationName, vmSizeName);
 
          VMHardware hwProfile = VMHardware.create(
                  myVMSize.name(),
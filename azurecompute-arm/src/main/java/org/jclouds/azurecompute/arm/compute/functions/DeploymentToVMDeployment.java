@@ -16,14 +16,18 @@
  */
 package org.jclouds.azurecompute.arm.compute.functions;
 
+import static org.jclouds.azurecompute.arm.config.AzureComputeProperties.MAX_CONCURRENT_REQUESTS;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.azurecompute.arm.AzureComputeApi;
 import org.jclouds.azurecompute.arm.compute.config.AzureComputeServiceContextModule;
 import org.jclouds.azurecompute.arm.domain.Deployment;
@@ -32,8 +36,13 @@ import org.jclouds.azurecompute.arm.domain.PublicIPAddress;
 import org.jclouds.azurecompute.arm.domain.VMDeployment;
 import org.jclouds.azurecompute.arm.domain.VirtualMachine;
 import org.jclouds.azurecompute.arm.domain.VirtualMachineInstance;
+import org.jclouds.azurecompute.arm.util.ParallelTransform;
 
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * Converts an Deployment into a VMDeployment.
@@ -45,19 +54,95 @@ public class DeploymentToVMDeployment implements Function<Deployment, VMDeployme
 
    private final AzureComputeApi api;
 
+   private final ListeningExecutorService userExecutor;
+
+   private final int maxConcurrentRequests;
+
    @Inject
-   DeploymentToVMDeployment(AzureComputeApi api, final AzureComputeServiceContextModule.AzureComputeConstants azureComputeConstants) {
+   DeploymentToVMDeployment(AzureComputeApi api, final AzureComputeServiceContextModule.AzureComputeConstants azureComputeConstants,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(MAX_CONCURRENT_REQUESTS) int maxConcurrentRequests) {
       this.api = api;
       this.azureComputeConstants = azureComputeConstants;
+      this.userExecutor = userExecutor;
+      this.maxConcurrentRequests = maxConcurrentRequests;
    }
 
    @Override
    public VMDeployment apply(final Deployment deployment) {
-      String id = deployment.id();
-      List<PublicIPAddress> ipAddressList = getIPAddresses(deployment);
-      List<NetworkInterfaceCard> networkInterfaceCards = getNetworkInterfaceCards(deployment);
-      VirtualMachine vm = api.getVirtualMachineApi(azureComputeConstants.azureResourceGroup()).get(id);
-      VirtualMachineInstance vmInstanceDetails = api.getVirtualMachineApi(azureComputeConstants.azureResourceGroup()).getInstanceDetails(id);
+      final String resourceGroup = getResourceGroupFromId(deployment.id());
+      // The virtual machine created by the deployment template is named after the deployment
+      String name = deployment.name();
+      VirtualMachine vm = api.getVirtualMachineApi(azureComputeConstants.azureResourceGroup()).get(name);
+      VirtualMachineInstance vmInstanceDetails = api.getVirtualMachineApi(azureComputeConstants.azureResourceGroup()).getInstanceDetails(name);
+      return create(deployment, vm, vmInstanceDetails, new Function<String, PublicIPAddress>() {
+         @Override
+         public PublicIPAddress apply(String resourceName) {
+            return api.getPublicIPAddressApi(resourceGroup).get(resourceName);
+         }
+      }, new Function<String, NetworkInterfaceCard>() {
+         @Override
+         public NetworkInterfaceCard apply(String resourceName) {
+            return api.getNetworkInterfaceCardApi(resourceGroup).get(resourceName);
+         }
+      });
+   }
+
+   /**
+    * Converts many deployments at once. Virtual machines, network interfaces and public IP addresses are listed once
+    * per resource group and joined by name, and only the instance views are fetched per deployment, in parallel.
+    */
+   public List<VMDeployment> transform(Iterable<Deployment> input) {
+      List<Deployment> deployments = ImmutableList.copyOf(input);
+      if (deployments.isEmpty()) {
+         return ImmutableList.of();
+      }
+      final String vmGroup = azureComputeConstants.azureResourceGroup();
+      Map<String, VirtualMachine> vms = Maps.newHashMap();
+      for (VirtualMachine vm : api.getVirtualMachineApi(vmGroup).list()) {
+         vms.put(vm.name(), vm);
+      }
+      Map<String, Map<String, PublicIPAddress>> ipsByGroup = Maps.newHashMap();
+      Map<String, Map<String, NetworkInterfaceCard>> nicsByGroup = Maps.newHashMap();
+      for (Deployment deployment : deployments) {
+         String resourceGroup = getResourceGroupFromId(deployment.id());
+         if (!ipsByGroup.containsKey(resourceGroup)) {
+            Map<String, PublicIPAddress> ips = Maps.newHashMap();
+            for (PublicIPAddress ip : api.getPublicIPAddressApi(resourceGroup).list()) {
+               ips.put(ip.name(), ip);
+            }
+            ipsByGroup.put(resourceGroup, ips);
+            Map<String, NetworkInterfaceCard> nics = Maps.newHashMap();
+            for (NetworkInterfaceCard nic : api.getNetworkInterfaceCardApi(resourceGroup).list()) {
+               nics.put(nic.name(), nic);
+            }
+            nicsByGroup.put(resourceGroup, nics);
+         }
+      }
+
+      List<VirtualMachineInstance> instances = ParallelTransform.transform(deployments,
+            new Function<Deployment, VirtualMachineInstance>() {
+               @Override
+               public VirtualMachineInstance apply(Deployment deployment) {
+                  return api.getVirtualMachineApi(vmGroup).getInstanceDetails(deployment.name());
+               }
+            }, userExecutor, maxConcurrentRequests);
+
+      ImmutableList.Builder<VMDeployment> result = ImmutableList.builder();
+      for (int i = 0; i < deployments.size(); i++) {
+         Deployment deployment = deployments.get(i);
+         String resourceGroup = getResourceGroupFromId(deployment.id());
+         result.add(create(deployment, vms.get(deployment.name()), instances.get(i),
+               Functions.forMap(ipsByGroup.get(resourceGroup), null),
+               Functions.forMap(nicsByGroup.get(resourceGroup), null)));
+      }
+      return result.build();
+   }
+
+   private VMDeployment create(Deployment deployment, VirtualMachine vm, VirtualMachineInstance vmInstanceDetails,
+         Function<String, PublicIPAddress> ipAddresses, Function<String, NetworkInterfaceCard> networkInterfaceCards) {
+      List<PublicIPAddress> ipAddressList = getIPAddresses(deployment, ipAddresses);
+      List<NetworkInterfaceCard> networkInterfaceCardList = getNetworkInterfaceCards(deployment, networkInterfaceCards);
       Map<String, String> userMetaData = null;
       Iterable<String> tags = null;
       if (vm != null && vm.tags() != null) {
@@ -65,12 +150,11 @@ public class DeploymentToVMDeployment implements Function<Deployment, VMDeployme
          String tagString = userMetaData.get("tags");
          tags = Arrays.asList(tagString.split(","));
       }
-      return VMDeployment.create(deployment, ipAddressList, vmInstanceDetails, vm, networkInterfaceCards, userMetaData, tags);
+      return VMDeployment.create(deployment, ipAddressList, vmInstanceDetails, vm, networkInterfaceCardList, userMetaData, tags);
    }
 
-   private List<PublicIPAddress> getIPAddresses(Deployment deployment) {
+   private List<PublicIPAddress> getIPAddresses(Deployment deployment, Function<String, PublicIPAddress> ipAddresses) {
       List<PublicIPAddress> list = new ArrayList<PublicIPAddress>();
-      String resourceGroup = getResourceGroupFromId(deployment.id());
 
       if (deployment.properties() != null && deployment.properties().dependencies() != null) {
          List<Deployment.Dependency> dependencies = deployment.properties().dependencies();
@@ -80,7 +164,7 @@ public class DeploymentToVMDeployment implements Function<Deployment, VMDeployme
                for (int e = 0; e < dependsOn.size(); e++) {
                   if (dependsOn.get(e).resourceType().equals("Microsoft.Network/publicIPAddresses")) {
                      String resourceName = dependsOn.get(e).resourceName();
-                     PublicIPAddress ip = api.getPublicIPAddressApi(resourceGroup).get(resourceName);
+                     PublicIPAddress ip = ipAddresses.apply(resourceName);
                      list.add(ip);
                      break;
                   }
@@ -101,16 +185,15 @@ public class DeploymentToVMDeployment implements Function<Deployment, VMDeployme
       return resourceGroup;
    }
 
-   private List<NetworkInterfaceCard> getNetworkInterfaceCards(Deployment deployment) {
+   private List<NetworkInterfaceCard> getNetworkInterfaceCards(Deployment deployment,
+         Function<String, NetworkInterfaceCard> networkInterfaceCards) {
       List<NetworkInterfaceCard> result = new ArrayList<NetworkInterfaceCard>();
 
-      String resourceGroup = getResourceGroupFromId(deployment.id());
-
       if (deployment.properties() != null && deployment.properties().dependencies() != null) {
          for (Deployment.Dependency dependency : deployment.properties().dependencies()) {
             if (dependency.resourceType().equals("Microsoft.Network/networkInterfaces")) {
                String resourceName = dependency.resourceName();
-               NetworkInterfaceCard nic = api.getNetworkInterfaceCardApi(resourceGroup).get(resourceName);
+               NetworkInterfaceCard nic = networkInterfaceCards.apply(resourceName);
                result.add(nic);
             }
          }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.compute.strategy;
+
+import static org.jclouds.azurecompute.arm.config.AzureComputeProperties.MAX_CONCURRENT_REQUESTS;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.azurecompute.arm.AzureComputeApi;
+import org.jclouds.azurecompute.arm.compute.config.AzureComputeServiceContextModule.AzureComputeConstants;
+import org.jclouds.azurecompute.arm.domain.Offer;
+import org.jclouds.azurecompute.arm.domain.SKU;
+import org.jclouds.azurecompute.arm.domain.VMImage;
+import org.jclouds.azurecompute.arm.domain.Version;
+import org.jclouds.azurecompute.arm.util.ParallelTransform;
+
+import com.google.common.base.Function;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Lists the marketplace images of the configured publishers in the given locations. Each level of the catalog
+ * (offers, SKUs, versions) is listed in parallel across everything found at the level above it, with a bounded number
+ * of requests in flight.
+ */
+@Singleton
+public class ListImagesParallel implements Function<Iterable<String>, List<VMImage>> {
+
+   private final AzureComputeApi api;
+   private final AzureComputeConstants azureComputeConstants;
+   private final ListeningExecutorService userExecutor;
+   private final int maxConcurrentRequests;
+
+   @Inject
+   ListImagesParallel(AzureComputeApi api, AzureComputeConstants azureComputeConstants,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(MAX_CONCURRENT_REQUESTS) int maxConcurrentRequests) {
+      this.api = api;
+      this.azureComputeConstants = azureComputeConstants;
+      this.userExecutor = userExecutor;
+      this.maxConcurrentRequests = maxConcurrentRequests;
+   }
+
+   @Override
+   public List<VMImage> apply(Iterable<String> locations) {
+      // Partial images identify each catalog node, the missing fields are filled in level by level
+      ImmutableList.Builder<VMImage> publishers = ImmutableList.builder();
+      for (String location : locations) {
+         for (String publisher : Splitter.on(',').trimResults().omitEmptyStrings()
+               .split(azureComputeConstants.azureImagePublishers())) {
+            publishers.add(VMImage.create(publisher, null, null, null, location));
+         }
+      }
+      List<VMImage> offers = expand(publishers.build(), new Function<VMImage, List<VMImage>>() {
+         @Override
+         public List<VMImage> apply(VMImage image) {
+            ImmutableList.Builder<VMImage> offers = ImmutableList.builder();
+            for (Offer offer : api.getOSImageApi(image.location()).listOffers(image.publisher())) {
+               offers.add(VMImage.create(image.publisher(), offer.name(), null, null, image.location()));
+            }
+            return offers.build();
+         }
+      });
+      List<VMImage> skus = expand(offers, new Function<VMImage, List<VMImage>>() {
+         @Override
+         public List<VMImage> apply(VMImage image) {
+            ImmutableList.Builder<VMImage> skus = ImmutableList.builder();
+            for (SKU sku : api.getOSImageApi(image.location()).listSKUs(image.publisher(), image.offer())) {
+               skus.add(VMImage.create(image.publisher(), image.offer(), sku.name(), null, image.location()));
+            }
+            return skus.build();
+         }
+      });
+      return expand(skus, new Function<VMImage, List<VMImage>>() {
+         @Override
+         public List<VMImage> apply(VMImage image) {
+            ImmutableList.Builder<VMImage> versions = ImmutableList.builder();
+            for (Version version : api.getOSImageApi(image.location())
+                  .listVersions(image.publisher(), image.offer(), image.sku())) {
+               versions.add(VMImage.create(image.publisher(), image.offer(), image.sku(), version.name(),
+                     image.location()));
+            }
+            return versions.build();
+         }
+      });
+   }
+
+   private List<VMImage> expand(List<VMImage> images, Function<VMImage, List<VMImage>> expansion) {
+      return ImmutableList.copyOf(Iterables.concat(
+            ParallelTransform.transform(images, expansion, userExecutor, maxConcurrentRequests)));
+   }
+}
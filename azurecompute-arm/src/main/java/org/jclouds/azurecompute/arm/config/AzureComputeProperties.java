@@ -47,4 +47,9 @@ public class AzureComputeProperties {
 
    public static final String DEFAULT_DATADISKSIZE = "jclouds.azurecompute.arm.datadisksize";
 
+   /**
+    * Maximum number of requests issued in parallel when walking catalogs or acting on many resources at once.
+    */
+   public static final String MAX_CONCURRENT_REQUESTS = "jclouds.azurecompute.arm.maxconcurrentrequests";
+
 }
@@ -19,26 +19,28 @@ package  org.jclouds.azurecompute.arm.functions;
 import static org.jclouds.azurecompute.arm.config.AzureComputeProperties.TIMEOUT_RESOURCE_DELETED;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_TERMINATED;
 
+import java.net.URI;
+
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import com.google.common.base.Predicate;
 import org.jclouds.azurecompute.arm.AzureComputeApi;
 import org.jclouds.azurecompute.arm.compute.config.AzureComputeServiceContextModule;
-import org.jclouds.azurecompute.arm.domain.Deployment;
-import org.jclouds.azurecompute.arm.domain.NetworkInterfaceCard;
-import org.jclouds.azurecompute.arm.domain.NetworkSecurityGroup;
-import org.jclouds.azurecompute.arm.domain.PublicIPAddress;
 import org.jclouds.azurecompute.arm.domain.VirtualMachine;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 
-import java.net.URI;
-
+/**
+ * Deletes a node and the resources created with it. Resources are deleted as soon as the ones depending on them are
+ * gone: the deployment and the network interface once the virtual machine is deleted, and the public IP and network
+ * security group once the network interface is deleted. Independent deletes are all requested before waiting for
+ * any of their jobs, so Azure runs them concurrently without tying up extra threads.
+ */
 @Singleton
 public class CleanupResources implements Function<String, Boolean> {
 
@@ -66,75 +68,73 @@ public class CleanupResources implements Function<String, Boolean> {
    public Boolean apply(String id) {
 
       logger.debug("Destroying %s ...", id);
-      String storageAccountName = id.replaceAll("[^A-Za-z0-9 ]", "") + "stor";
       String group = azureComputeConstants.azureResourceGroup();
 
       VirtualMachine vm = api.getVirtualMachineApi(group).get(id);
-      if (vm != null) {
-         URI uri = api.getVirtualMachineApi(group).delete(id);
-         if (uri != null) {
-            boolean jobDone = nodeTerminated.apply(uri);
-            boolean storageAcctDeleteStatus = false;
-            boolean deploymentDeleteStatus = false;
-
-            if (jobDone) {
-               Deployment deployment = api.getDeploymentApi(group).get(id);
-               if (deployment != null) {
-                  uri = api.getDeploymentApi(group).delete(id);
-                  jobDone = resourceDeleted.apply(uri);
-                  if (jobDone) {
-                     deploymentDeleteStatus = true;
-                  }
-               } else {
-                  deploymentDeleteStatus = true;
-               }
-               NetworkInterfaceCard nic = api.getNetworkInterfaceCardApi(group).get(id + "nic");
-               if (nic != null) {
-                  uri = api.getNetworkInterfaceCardApi(group).delete(id + "nic");
-                  if (uri != null) {
-                     jobDone = resourceDeleted.apply(uri);
-                     if (jobDone) {
-                        boolean ipDeleteStatus = false;
-                        PublicIPAddress ip = api.getPublicIPAddressApi(group).get(id + "publicip");
-                        if (ip != null) {
-                           ipDeleteStatus = api.getPublicIPAddressApi(group).delete(id + "publicip");
-                        } else {
-                           ipDeleteStatus = true;
-                        }
-
-                        // Get NSG
-                        boolean nsgDeleteStatus = false;
-                        NetworkSecurityGroup nsg = api.getNetworkSecurityGroupApi(group).get(id + "nsg");
-                        if (nsg != null) {
-                           uri = api.getNetworkSecurityGroupApi(group).delete(id + "nsg");
-                           jobDone = resourceDeleted.apply(uri);
-                           if (jobDone) {
-                              nsgDeleteStatus = true;
-
-                           }
-                        }
-                        else {
-                           nsgDeleteStatus = true;
-                        }
-
-                        return deploymentDeleteStatus && storageAcctDeleteStatus && ipDeleteStatus && nsgDeleteStatus;
-                     } else {
-                        return false;
-                     }
-                  } else {
-                     return false;
-                  }
-               } else {
-                  return false;
-               }
-            } else {
-               return false;
-            }
-         } else {
-            return false;
-         }
-      } else {
+      if (vm == null) {
          return false;
       }
+      URI uri = api.getVirtualMachineApi(group).delete(id);
+      if (!report("virtual machine", id, uri != null && nodeTerminated.apply(uri))) {
+         return false;
+      }
+
+      URI deploymentJob = deleteDeployment(group, id);
+      URI nicJob = deleteNetworkInterfaceCard(group, id + "nic");
+      boolean deploymentDeleted = report("deployment", id, awaitDeleted(deploymentJob));
+      boolean nicDeleted = report("network interface", id + "nic", awaitDeleted(nicJob));
+      if (!nicDeleted) {
+         return false;
+      }
+
+      URI nsgJob = deleteNetworkSecurityGroup(group, id + "nsg");
+      boolean ipDeleted = report("public IP address", id + "publicip", deletePublicIPAddress(group, id + "publicip"));
+      boolean nsgDeleted = report("network security group", id + "nsg", awaitDeleted(nsgJob));
+      return deploymentDeleted && ipDeleted && nsgDeleted;
+   }
+
+   /** @return the job deleting the deployment, or null if there is nothing to wait for */
+   private URI deleteDeployment(String group, String name) {
+      if (api.getDeploymentApi(group).get(name) == null) {
+         return null;
+      }
+      return api.getDeploymentApi(group).delete(name);
+   }
+
+   /** @return the job deleting the network interface, or null if there is nothing to wait for */
+   private URI deleteNetworkInterfaceCard(String group, String name) {
+      if (api.getNetworkInterfaceCardApi(group).get(name) == null) {
+         return null;
+      }
+      return api.getNetworkInterfaceCardApi(group).delete(name);
+   }
+
+   /** @return the job deleting the network security group, or null if there is nothing to wait for */
+   private URI deleteNetworkSecurityGroup(String group, String name) {
+      if (api.getNetworkSecurityGroupApi(group).get(name) == null) {
+         return null;
+      }
+      return api.getNetworkSecurityGroupApi(group).delete(name);
+   }
+
+   private boolean deletePublicIPAddress(String group, String name) {
+      if (api.getPublicIPAddressApi(group).get(name) == null) {
+         return true;
+      }
+      return api.getPublicIPAddressApi(group).delete(name);
+   }
+
+   private boolean awaitDeleted(URI job) {
+      // No job means the resource was already gone or was deleted synchronously
+      return job == null || resourceDeleted.apply(job);
+   }
+
+   private boolean report(String type, String name, boolean deleted) {
+      if (deleted) {
+         logger.debug("<< deleted %s %s", type, name);
+      } else {
+         logger.warn("<< could not delete %s %s", type, name);
+      }
+      return deleted;
    }
 }
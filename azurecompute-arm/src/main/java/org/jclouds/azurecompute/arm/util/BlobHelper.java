@@ -16,76 +16,193 @@
  */
 package org.jclouds.azurecompute.arm.util;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.azurecompute.arm.util.Caches.getUnchecked;
+
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.ContextBuilder;
 import org.jclouds.azure.storage.domain.BoundedSet;
 import org.jclouds.azureblob.AzureBlobClient;
 import org.jclouds.azureblob.domain.BlobProperties;
 import org.jclouds.azureblob.domain.ContainerProperties;
 import org.jclouds.azureblob.domain.ListBlobsResponse;
+import org.jclouds.azurecompute.arm.AzureComputeApi;
 import org.jclouds.azurecompute.arm.domain.VMImage;
 import org.jclouds.util.Closeables2;
 
-public class BlobHelper {
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Maps;
+
+/**
+ * Accesses the blobs of storage accounts. Blob clients are expensive to build, so they are kept per storage account
+ * and key, and evicted once idle for a session interval, when more than {@link #MAX_CLIENTS} accounts are in use, or
+ * when the context is closed. An evicted client is closed once the last call using it returns. Storage account keys
+ * are cached for a session interval.
+ */
+@Singleton
+public class BlobHelper implements Closeable {
+
+   /** Evicting a client in use only delays closing it, but this stays well above the storage accounts used at once. */
+   private static final int MAX_CLIENTS = 64;
 
-   public static void deleteContainerIfExists(String storage, String key, String containerName) {
-      final AzureBlobClient azureBlob = ContextBuilder.newBuilder("azureblob")
-              .credentials(storage, key)
-              .buildApi(AzureBlobClient.class);
+   private final LoadingCache<Map.Entry<String, String>, SharedClient<AzureBlobClient>> clients;
+   private final LoadingCache<Map.Entry<String, String>, String> storageKeys;
 
+   @Inject
+   BlobHelper(final AzureComputeApi api, @Named(Constants.PROPERTY_SESSION_INTERVAL) long sessionInterval) {
+      this.clients = CacheBuilder.newBuilder()
+              .maximumSize(MAX_CLIENTS)
+              .expireAfterAccess(sessionInterval, SECONDS)
+              .removalListener(new RemovalListener<Map.Entry<String, String>, SharedClient<AzureBlobClient>>() {
+                 @Override
+                 public void onRemoval(
+                         RemovalNotification<Map.Entry<String, String>, SharedClient<AzureBlobClient>> notification) {
+                    notification.getValue().evict();
+                 }
+              })
+              .build(new CacheLoader<Map.Entry<String, String>, SharedClient<AzureBlobClient>>() {
+                 @Override
+                 public SharedClient<AzureBlobClient> load(Map.Entry<String, String> storageAndKey) {
+                    return new SharedClient<AzureBlobClient>(ContextBuilder.newBuilder("azureblob")
+                            .credentials(storageAndKey.getKey(), storageAndKey.getValue())
+                            .buildApi(AzureBlobClient.class));
+                 }
+              });
+      this.storageKeys = CacheBuilder.newBuilder()
+              .expireAfterWrite(sessionInterval, SECONDS)
+              .build(new CacheLoader<Map.Entry<String, String>, String>() {
+                 @Override
+                 public String load(Map.Entry<String, String> groupAndStorage) {
+                    return api.getStorageAccountApi(groupAndStorage.getKey()).getKeys(groupAndStorage.getValue()).key1();
+                 }
+              });
+   }
+
+   /**
+    * @return the primary key of the storage account in the given resource group
+    */
+   public String storageKey(String group, String storage) {
+      return getUnchecked(storageKeys, Maps.immutableEntry(group, storage));
+   }
+
+   public void deleteContainerIfExists(String storage, String key, String containerName) {
+      SharedClient<AzureBlobClient> client = acquire(storage, key);
       try {
-         azureBlob.deleteContainer(containerName);
-      }
-      finally {
-         Closeables2.closeQuietly(azureBlob);
+         client.get().deleteContainer(containerName);
+      } finally {
+         client.release();
       }
    }
 
-   public static boolean customImageExists(String storage, String key) {
-      final AzureBlobClient azureBlob = ContextBuilder.newBuilder("azureblob")
-              .credentials(storage, key)
-              .buildApi(AzureBlobClient.class);
-
+   public boolean customImageExists(String storage, String key) {
+      SharedClient<AzureBlobClient> client = acquire(storage, key);
       try {
-         return azureBlob.containerExists("system");
+         return client.get().containerExists("system");
+      } finally {
+         client.release();
       }
-      finally {
-         Closeables2.closeQuietly(azureBlob);
+   }
+
+   public List<VMImage> getImages(String containerName, String group,
+                                  String storageAccountName, String key, String offer, String location) {
+      SharedClient<AzureBlobClient> client = acquire(storageAccountName, key);
+      try {
+         return listImages(client.get(), group, storageAccountName, location);
+      } finally {
+         client.release();
       }
    }
 
-   public static List<VMImage> getImages(String containerName, String group,
-                                         String storageAccountName, String key, String offer, String location) {
-      final AzureBlobClient azureBlob = ContextBuilder.newBuilder("azureblob")
-              .credentials(storageAccountName, key)
-              .buildApi(AzureBlobClient.class);
+   private static List<VMImage> listImages(AzureBlobClient azureBlob, String group, String storageAccountName,
+                                           String location) {
+      List<VMImage> list = new ArrayList<VMImage>();
+      BoundedSet<ContainerProperties> containerList = azureBlob.listContainers();
+      for (ContainerProperties props : containerList) {
+         if (props.getName().equals("system")) {
+            ListBlobsResponse blobList = azureBlob.listBlobs("system");
+            String osDisk = "";
+            String dataDisk = "";
 
+            for (BlobProperties blob : blobList) {
+               String name = blob.getName();
 
-      List<VMImage> list = new ArrayList<VMImage>();
-      try {
-         BoundedSet<ContainerProperties> containerList = azureBlob.listContainers();
-         for (ContainerProperties props : containerList) {
-            if (props.getName().equals("system")) {
-               ListBlobsResponse blobList = azureBlob.listBlobs("system");
-               String osDisk = "";
-               String dataDisk = "";
-
-               for (BlobProperties blob : blobList) {
-                  String name = blob.getName();
-
-                  if (dataDisk.length() == 0) dataDisk = name.substring(1 + name.lastIndexOf('/'));
-                  else if (osDisk.length() == 0) osDisk = name.substring(1 + name.lastIndexOf('/'));
-               }
-               final VMImage ref = VMImage.create(group, storageAccountName, osDisk, dataDisk, "test-create-image", "custom", location);
-               list.add(ref);
+               if (dataDisk.length() == 0) dataDisk = name.substring(1 + name.lastIndexOf('/'));
+               else if (osDisk.length() == 0) osDisk = name.substring(1 + name.lastIndexOf('/'));
             }
+            final VMImage ref = VMImage.create(group, storageAccountName, osDisk, dataDisk, "test-create-image", "custom", location);
+            list.add(ref);
          }
       }
-      finally {
-         Closeables2.closeQuietly(azureBlob);
-      }
       return list;
    }
+
+   @PreDestroy
+   @Override
+   public void close() {
+      clients.invalidateAll();
+      storageKeys.invalidateAll();
+   }
+
+   private SharedClient<AzureBlobClient> acquire(String storage, String key) {
+      while (true) {
+         SharedClient<AzureBlobClient> client = getUnchecked(clients, Maps.immutableEntry(storage, key));
+         if (client.acquire()) {
+            return client;
+         }
+         // Evicted since the lookup, which has already removed it from the cache
+      }
+   }
+
+   /**
+    * A resource which is closed once it has been evicted and the last caller using it has released it.
+    */
+   static final class SharedClient<T extends Closeable> {
+      private final T client;
+      private int users;  // guarded by this
+      private boolean evicted;  // guarded by this
+
+      SharedClient(T client) {
+         this.client = client;
+      }
+
+      T get() {
+         return client;
+      }
+
+      /** @return false if the client has been evicted and must not be used */
+      synchronized boolean acquire() {
+         if (evicted) {
+            return false;
+         }
+         ++users;
+         return true;
+      }
+
+      synchronized void release() {
+         if (--users == 0 && evicted) {
+            Closeables2.closeQuietly(client);
+         }
+      }
+
+      synchronized void evict() {
+         evicted = true;
+         if (users == 0) {
+            Closeables2.closeQuietly(client);
+         }
+      }
+   }
 }
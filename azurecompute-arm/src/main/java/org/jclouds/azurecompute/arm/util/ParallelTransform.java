@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.util;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+public class ParallelTransform {
+
+   /**
+    * Applies the function to every input on the executor, running at most {@code maxConcurrency} applications at
+    * once. Blocks the calling thread until all results are in, so the function must not itself wait for other tasks
+    * on a bounded executor. Results are returned in input order. After the first failure no further inputs are
+    * submitted, the pending applications are cancelled and the failure is rethrown.
+    */
+   public static <F, T> List<T> transform(Iterable<F> inputs, final Function<? super F, T> function,
+         ListeningExecutorService executor, int maxConcurrency) {
+      final Semaphore permits = new Semaphore(maxConcurrency);
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      List<ListenableFuture<T>> futures = Lists.newArrayList();
+      boolean done = false;
+      try {
+         for (final F input : inputs) {
+            permits.acquireUninterruptibly();
+            if (failure.get() != null) {
+               permits.release();
+               break;
+            }
+            try {
+               futures.add(executor.submit(new Callable<T>() {
+                  @Override
+                  public T call() {
+                     try {
+                        return function.apply(input);
+                     } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                     } catch (Error e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                     } finally {
+                        permits.release();
+                     }
+                  }
+               }));
+            } catch (RuntimeException e) {
+               permits.release();
+               throw e;
+            }
+         }
+         if (failure.get() != null) {
+            throw Throwables.propagate(failure.get());
+         }
+         List<T> results = Futures.allAsList(futures).get();
+         done = true;
+         return results;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      } finally {
+         if (!done) {
+            for (ListenableFuture<T> future : futures) {
+               future.cancel(true);
+            }
+         }
+      }
+   }
+
+   private ParallelTransform() {
+   }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.compute;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+import org.jclouds.azurecompute.arm.internal.BaseAzureComputeApiMockTest;
+import org.jclouds.rest.AuthorizationException;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+
+@Test(groups = "unit", testName = "AzureComputeCatalogMockTest", singleThreaded = true)
+public class AzureComputeCatalogMockTest extends BaseAzureComputeApiMockTest {
+
+   public void testLocationsAreFetchedOnceAndIndexed() throws Exception {
+      server.enqueue(jsonResponse("/getresourceprovidermetadata.json"));
+      server.enqueue(jsonResponse("/locations.json"));
+
+      AzureComputeCatalog catalog = new AzureComputeCatalog(api, 60);
+
+      assertEquals(catalog.vmLocations().size(), 1);
+      assertEquals(catalog.location("eastasia").displayName(), "East Asia");
+      assertEquals(catalog.locationByDisplayName("East Asia").name(), "eastasia");
+      assertNull(catalog.location("westeurope"));
+
+      assertEquals(server.getRequestCount(), 2);
+      assertSent(server, "GET", "/subscriptions/SUBSCRIPTIONID/providers/Microsoft.Compute?api-version=2015-01-01");
+      assertSent(server, "GET", "/subscriptions/SUBSCRIPTIONID/locations?api-version=2015-11-01");
+   }
+
+   public void testVMSizesAreFetchedOncePerLocation() throws Exception {
+      server.enqueue(jsonResponse("/vmsizes.json"));
+
+      AzureComputeCatalog catalog = new AzureComputeCatalog(api, 60);
+
+      assertEquals(catalog.vmSize("westeurope", "Standard_A1").memoryInMB(), Integer.valueOf(1792));
+      assertEquals(catalog.vmSize("westeurope", "Standard_A0").numberOfCores(), Integer.valueOf(1));
+      assertNull(catalog.vmSize("westeurope", "Unknown"));
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET",
+            "/subscriptions/SUBSCRIPTIONID/providers/Microsoft.Compute/locations/westeurope/vmSizes?api-version=2015-06-15");
+   }
+
+   public void testVMSizeFailureIsNotWrapped() throws Exception {
+      server.enqueue(new MockResponse().setResponseCode(403));
+
+      AzureComputeCatalog catalog = new AzureComputeCatalog(api, 60);
+      try {
+         catalog.vmSizes("westeurope");
+         fail("AuthorizationException expected");
+      } catch (AuthorizationException expected) {
+         // not wrapped in UncheckedExecutionException
+      }
+   }
+}
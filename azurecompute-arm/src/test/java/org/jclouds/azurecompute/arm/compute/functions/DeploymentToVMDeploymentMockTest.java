@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.compute.functions;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.jclouds.azurecompute.arm.compute.config.AzureComputeServiceContextModule.AzureComputeConstants;
+import org.jclouds.azurecompute.arm.domain.Deployment;
+import org.jclouds.azurecompute.arm.domain.VMDeployment;
+import org.jclouds.azurecompute.arm.internal.BaseAzureComputeApiMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+@Test(groups = "unit", testName = "DeploymentToVMDeploymentMockTest", singleThreaded = true)
+public class DeploymentToVMDeploymentMockTest extends BaseAzureComputeApiMockTest {
+
+   private static final String GROUP = "/subscriptions/SUBSCRIPTIONID/resourcegroups/resourcegroup";
+   private static final String VMS = "/subscriptions/SUBSCRIPTIONID/resourceGroups/resourcegroup/providers/Microsoft.Compute"
+         + "/virtualMachines";
+   private static final String DEPLOYMENTS = GROUP + "/providers/microsoft.resources/deployments?api-version=2016-02-01";
+   private static final String NICS = GROUP + "/providers/Microsoft.Network/networkInterfaces?api-version=2015-06-15";
+   private static final String IPS = GROUP + "/providers/Microsoft.Network/publicIPAddresses?api-version=2015-06-15";
+
+   public void testResourcesAreListedOncePerGroupAndJoinedByName() throws Exception {
+      server.enqueue(jsonResponse("/nodedeployments.json"));
+      server.enqueue(jsonResponse("/nodevirtualmachines.json"));
+      server.enqueue(jsonResponse("/nodepublicipaddresses.json"));
+      server.enqueue(jsonResponse("/nodenetworkinterfaces.json"));
+      server.enqueue(jsonResponse("/virtualmachineInstance.json"));
+      server.enqueue(response404());
+
+      List<Deployment> deployments = api.getDeploymentApi("resourcegroup").list();
+      List<VMDeployment> nodes = deploymentToVMDeployment().transform(deployments);
+
+      assertEquals(nodes.size(), 2);
+
+      VMDeployment node1 = nodes.get(0);
+      assertEquals(node1.deployment().name(), "node1");
+      assertEquals(node1.virtualMachine().name(), "node1");
+      assertNotNull(node1.vm());
+      assertEquals(node1.networkInterfaceCards().size(), 1);
+      assertEquals(node1.networkInterfaceCards().get(0).name(), "node1nic");
+      assertEquals(node1.ipAddressList().size(), 1);
+      assertEquals(node1.ipAddressList().get(0).name(), "node1publicip");
+      assertEquals(node1.ipAddressList().get(0).properties().ipAddress(), "12.123.12.1");
+      assertEquals(node1.userMetaData(), ImmutableMap.of("tags", "web,db"));
+      assertEquals(ImmutableList.copyOf(node1.tags()), ImmutableList.of("web", "db"));
+
+      // The virtual machine of the second deployment is gone, its network resources are still joined
+      VMDeployment node2 = nodes.get(1);
+      assertEquals(node2.deployment().name(), "node2");
+      assertNull(node2.virtualMachine());
+      assertNull(node2.vm());
+      assertEquals(node2.networkInterfaceCards().size(), 1);
+      assertEquals(node2.networkInterfaceCards().get(0).name(), "node2nic");
+      assertEquals(node2.ipAddressList().size(), 1);
+      assertEquals(node2.ipAddressList().get(0).properties().ipAddress(), "12.123.12.2");
+      assertNull(node2.userMetaData());
+      assertNull(node2.tags());
+
+      // Both deployments live in the same resource group so each list call is made once
+      assertEquals(server.getRequestCount(), 6);
+      assertSent(server, "GET", DEPLOYMENTS);
+      assertSent(server, "GET", VMS + "?api-version=2015-06-15");
+      assertSent(server, "GET", IPS);
+      assertSent(server, "GET", NICS);
+      assertSent(server, "GET", VMS + "/node1/instanceView?api-version=2015-06-15");
+      assertSent(server, "GET", VMS + "/node2/instanceView?api-version=2015-06-15");
+   }
+
+   public void testNoDeploymentsMakeNoRequests() throws Exception {
+      assertTrue(deploymentToVMDeployment().transform(ImmutableList.<Deployment> of()).isEmpty());
+      assertEquals(server.getRequestCount(), 0);
+   }
+
+   private DeploymentToVMDeployment deploymentToVMDeployment() {
+      AzureComputeConstants constants = new AzureComputeConstants() {
+         @Override
+         public String azureResourceGroup() {
+            return "resourcegroup";
+         }
+      };
+      return new DeploymentToVMDeployment(api, constants, sameThreadExecutor(), 2);
+   }
+}
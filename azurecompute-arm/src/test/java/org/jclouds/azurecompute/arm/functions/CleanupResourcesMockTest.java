@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+
+import org.jclouds.azurecompute.arm.compute.config.AzureComputeServiceContextModule.AzureComputeConstants;
+import org.jclouds.azurecompute.arm.internal.BaseAzureComputeApiMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+
+@Test(groups = "unit", testName = "CleanupResourcesMockTest", singleThreaded = true)
+public class CleanupResourcesMockTest extends BaseAzureComputeApiMockTest {
+
+   private static final String GROUP = "/subscriptions/SUBSCRIPTIONID/resourcegroups/resourcegroup";
+   private static final String VM = "/subscriptions/SUBSCRIPTIONID/resourceGroups/resourcegroup/providers/Microsoft.Compute"
+         + "/virtualMachines/node?api-version=2015-06-15";
+   private static final String DEPLOYMENT = GROUP + "/providers/microsoft.resources/deployments/node?api-version=2016-02-01";
+   private static final String NIC = GROUP + "/providers/Microsoft.Network/networkInterfaces/nodenic?api-version=2015-06-15";
+   private static final String NSG = GROUP + "/providers/Microsoft.Network/networkSecurityGroups/nodensg?api-version=2016-03-30";
+   private static final String IP = GROUP + "/providers/Microsoft.Network/publicIPAddresses/nodepublicip?api-version=2015-06-15";
+
+   public void testMissingVirtualMachine() throws Exception {
+      server.enqueue(response404());
+
+      assertFalse(cleanupResources(Predicates.<URI> alwaysTrue()).apply("node"));
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", VM);
+   }
+
+   public void testAbsentResourcesCountAsDeleted() throws Exception {
+      server.enqueue(jsonResponse("/virtualmachine.json"));
+      server.enqueue(response202WithHeader());
+      server.enqueue(response404());
+      server.enqueue(response404());
+      server.enqueue(response404());
+      server.enqueue(response404());
+
+      assertTrue(cleanupResources(Predicates.<URI> alwaysFalse()).apply("node"));
+
+      assertEquals(server.getRequestCount(), 6);
+      assertSent(server, "GET", VM);
+      assertSent(server, "DELETE", VM);
+      assertSent(server, "GET", DEPLOYMENT);
+      assertSent(server, "GET", NIC);
+      assertSent(server, "GET", NSG);
+      assertSent(server, "GET", IP);
+   }
+
+   public void testDeletesWithoutJobCountAsDeleted() throws Exception {
+      server.enqueue(jsonResponse("/virtualmachine.json"));
+      server.enqueue(response202WithHeader());
+      server.enqueue(jsonResponse("/createdeploymentsucceeded.json"));
+      server.enqueue(response200());
+      server.enqueue(jsonResponse("/getnetworkinterfacecard.json"));
+      server.enqueue(response204());
+      server.enqueue(jsonResponse("/networksecuritygroupget.json"));
+      server.enqueue(response200());
+      server.enqueue(jsonResponse("/PublicIPAddressGetInfo.json"));
+      server.enqueue(response200());
+
+      // Deletes that return no job must not be polled
+      assertTrue(cleanupResources(Predicates.<URI> alwaysFalse()).apply("node"));
+
+      assertEquals(server.getRequestCount(), 10);
+      assertSent(server, "GET", VM);
+      assertSent(server, "DELETE", VM);
+      // Both deletes are requested before waiting for either of them
+      assertSent(server, "GET", DEPLOYMENT);
+      assertSent(server, "DELETE", DEPLOYMENT);
+      assertSent(server, "GET", NIC);
+      assertSent(server, "DELETE", NIC);
+      assertSent(server, "GET", NSG);
+      assertSent(server, "DELETE", NSG);
+      assertSent(server, "GET", IP);
+      assertSent(server, "DELETE", IP);
+   }
+
+   public void testFailedDeleteIsReported() throws Exception {
+      server.enqueue(jsonResponse("/virtualmachine.json"));
+      server.enqueue(response202WithHeader());
+      server.enqueue(jsonResponse("/createdeploymentsucceeded.json"));
+      server.enqueue(response202WithHeader());
+      server.enqueue(response404());
+      server.enqueue(response404());
+      server.enqueue(response404());
+
+      assertFalse(cleanupResources(Predicates.<URI> alwaysFalse()).apply("node"));
+
+      assertEquals(server.getRequestCount(), 7);
+      assertSent(server, "GET", VM);
+      assertSent(server, "DELETE", VM);
+      assertSent(server, "GET", DEPLOYMENT);
+      assertSent(server, "DELETE", DEPLOYMENT);
+      assertSent(server, "GET", NIC);
+      assertSent(server, "GET", NSG);
+      assertSent(server, "GET", IP);
+   }
+
+   private CleanupResources cleanupResources(Predicate<URI> resourceDeleted) {
+      AzureComputeConstants constants = new AzureComputeConstants() {
+         @Override
+         public String azureResourceGroup() {
+            return "resourcegroup";
+         }
+      };
+      return new CleanupResources(api, constants, Predicates.<URI> alwaysTrue(), resourceDeleted);
+   }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.Closeable;
+
+import org.jclouds.azurecompute.arm.internal.BaseAzureComputeApiMockTest;
+import org.jclouds.rest.AuthorizationException;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+
+@Test(groups = "unit", testName = "BlobHelperMockTest", singleThreaded = true)
+public class BlobHelperMockTest extends BaseAzureComputeApiMockTest {
+
+   public void testStorageKeyIsFetchedOnce() throws Exception {
+      server.enqueue(jsonResponse("/storageaccountkeys.json"));
+
+      BlobHelper blobHelper = new BlobHelper(api, 60);
+      try {
+         String key = "bndO7lydwDkMo4Y0mFvmfLyi2f9aZY7bwfAVWoJWv4mOVK6E9c/exLnFsSm/NMWgifLCfxC/c6QBTbdEvWUA7w==";
+         assertEquals(blobHelper.storageKey("resourceGroup", "TESTSTORAGE"), key);
+         assertEquals(blobHelper.storageKey("resourceGroup", "TESTSTORAGE"), key);
+      } finally {
+         blobHelper.close();
+      }
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "POST", "/subscriptions/SUBSCRIPTIONID/resourcegroups/resourceGroup"
+            + "/providers/Microsoft.Storage/storageAccounts/TESTSTORAGE/listKeys?api-version=2015-06-15");
+   }
+
+   public void testStorageKeyFailureIsNotWrapped() throws Exception {
+      server.enqueue(new MockResponse().setResponseCode(403));
+
+      BlobHelper blobHelper = new BlobHelper(api, 60);
+      try {
+         blobHelper.storageKey("resourceGroup", "TESTSTORAGE");
+         fail("AuthorizationException expected");
+      } catch (AuthorizationException expected) {
+         // not wrapped in UncheckedExecutionException
+      } finally {
+         blobHelper.close();
+      }
+   }
+
+   public void testEvictedClientIsClosedByItsLastUser() {
+      CountingCloseable closeable = new CountingCloseable();
+      BlobHelper.SharedClient<CountingCloseable> client = new BlobHelper.SharedClient<CountingCloseable>(closeable);
+      assertTrue(client.acquire());
+      assertTrue(client.acquire());
+
+      client.evict();
+      assertFalse(client.acquire());
+      assertEquals(closeable.closed, 0);
+      client.release();
+      assertEquals(closeable.closed, 0);
+      client.release();
+      assertEquals(closeable.closed, 1);
+   }
+
+   public void testUnusedClientIsClosedWhenEvicted() {
+      CountingCloseable closeable = new CountingCloseable();
+      BlobHelper.SharedClient<CountingCloseable> client = new BlobHelper.SharedClient<CountingCloseable>(closeable);
+      assertTrue(client.acquire());
+      client.release();
+      assertEquals(closeable.closed, 0);
+
+      client.evict();
+      assertEquals(closeable.closed, 1);
+   }
+
+   private static final class CountingCloseable implements Closeable {
+      private int closed;
+
+      @Override
+      public void close() {
+         ++closed;
+      }
+   }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.util;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", testName = "ParallelTransformTest")
+public class ParallelTransformTest {
+
+   private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+
+   @AfterClass(alwaysRun = true)
+   public void shutdown() {
+      executor.shutdownNow();
+   }
+
+   public void testResultsKeepInputOrderAndConcurrencyIsBounded() {
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      List<Integer> results = ParallelTransform.transform(ImmutableList.of(1, 2, 3, 4, 5, 6, 7, 8),
+            new Function<Integer, Integer>() {
+               @Override
+               public Integer apply(Integer input) {
+                  int now = running.incrementAndGet();
+                  int max;
+                  do {
+                     max = maxRunning.get();
+                  } while (now > max && !maxRunning.compareAndSet(max, now));
+                  Uninterruptibles.sleepUninterruptibly(10, MILLISECONDS);
+                  running.decrementAndGet();
+                  return input * 10;
+               }
+            }, executor, 3);
+
+      assertEquals(results, ImmutableList.of(10, 20, 30, 40, 50, 60, 70, 80));
+      assertTrue(maxRunning.get() <= 3, "at most 3 concurrent applications, saw " + maxRunning.get());
+   }
+
+   public void testFailureIsRethrown() {
+      try {
+         ParallelTransform.transform(ImmutableList.of(1, 2), new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer input) {
+               if (input == 2) {
+                  throw new IllegalStateException("boom");
+               }
+               return input;
+            }
+         }, executor, 2);
+         fail("expected the failure to be rethrown");
+      } catch (IllegalStateException e) {
+         assertEquals(e.getMessage(), "boom");
+      }
+   }
+
+   public void testNoInputsAreSubmittedAfterAFailure() {
+      final List<Integer> applied = Collections.synchronizedList(Lists.<Integer> newArrayList());
+      try {
+         ParallelTransform.transform(ImmutableList.of(1, 2, 3, 4, 5, 6), new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer input) {
+               applied.add(input);
+               if (input == 2) {
+                  throw new IllegalStateException("boom");
+               }
+               return input;
+            }
+         }, executor, 1);
+         fail("expected the failure to be rethrown");
+      } catch (IllegalStateException e) {
+         assertEquals(e.getMessage(), "boom");
+      }
+      assertEquals(applied, ImmutableList.of(1, 2));
+   }
+}
@@ -28,6 +28,7 @@ import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.reference.BlobStoreConstants;
 import org.jclouds.b2.blobstore.config.B2BlobStoreContextModule;
 import org.jclouds.b2.config.B2HttpApiModule;
+import org.jclouds.b2.reference.B2Constants;
 import org.jclouds.rest.internal.BaseHttpApiMetadata;
 
 import com.google.common.collect.ImmutableSet;
@@ -53,6 +54,16 @@ public final class B2ApiMetadata extends BaseHttpApiMetadata {
       properties.setProperty(Constants.PROPERTY_SESSION_INTERVAL, String.valueOf(TimeUnit.HOURS.toSeconds(1)));
       properties.setProperty(Constants.PROPERTY_IDEMPOTENT_METHODS, "DELETE,GET,HEAD,OPTIONS,POST,PUT");
       properties.setProperty(Constants.PROPERTY_RETRY_DELAY_START, String.valueOf(TimeUnit.SECONDS.toMillis(1)));
+      properties.setProperty(B2Constants.PROPERTY_UPLOAD_URL_POOL_SIZE, "16");
+      properties.setProperty(B2Constants.PROPERTY_MAX_IN_FLIGHT_PARTS, "4");
+      properties.setProperty(B2Constants.PROPERTY_FILE_CACHE_TTL, "60");
+      properties.setProperty(B2Constants.PROPERTY_FILE_CACHE_SIZE, "10000");
+      properties.setProperty(B2Constants.PROPERTY_VERSION_REAPER_ENABLED, "false");
+      properties.setProperty(B2Constants.PROPERTY_VERSION_REAPER_QUEUE_SIZE, "1000");
+      properties.setProperty(B2Constants.PROPERTY_VERSION_REAPER_THREADS, "2");
+      properties.setProperty(B2Constants.PROPERTY_DOWNLOAD_RANGE_SIZE, String.valueOf(32L * 1024 * 1024));
+      properties.setProperty(B2Constants.PROPERTY_MAX_IN_FLIGHT_RANGES, "4");
+      properties.setProperty(B2Constants.PROPERTY_MAX_IN_FLIGHT_DELETES, "8");
       return properties;
    }
 
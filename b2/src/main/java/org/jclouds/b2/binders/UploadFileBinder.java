@@ -20,6 +20,7 @@ import java.util.Map;
 
 import org.jclouds.http.HttpRequest;
 import org.jclouds.b2.domain.UploadUrlResponse;
+import org.jclouds.b2.io.payloads.HexDigitsAtEndPayload;
 import org.jclouds.b2.reference.B2Headers;
 import org.jclouds.rest.MapBinder;
 
@@ -41,6 +42,10 @@ public final class UploadFileBinder implements MapBinder {
       for (Map.Entry<String, String> entry : fileInfo.entrySet()) {
          builder.replaceHeader(B2Headers.FILE_INFO_PREFIX + entry.getKey(), escaper.escape(entry.getValue()));
       }
+      if (B2Headers.HEX_DIGITS_AT_END.equals(request.getFirstHeaderOrNull(B2Headers.CONTENT_SHA1)) &&
+            !(request.getPayload() instanceof HexDigitsAtEndPayload)) {
+         builder.payload(new HexDigitsAtEndPayload(request.getPayload()));
+      }
       return (R) builder.build();
    }
 
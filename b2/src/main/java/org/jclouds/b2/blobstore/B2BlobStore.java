@@ -16,7 +16,9 @@
  */
 package org.jclouds.b2.blobstore;
 
+import java.io.File;
 import java.io.IOException;
+import java.math.RoundingMode;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
@@ -24,9 +26,11 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import org.jclouds.b2.B2Api;
 import org.jclouds.b2.B2ResponseException;
+import org.jclouds.b2.domain.Action;
 import org.jclouds.b2.domain.Authorization;
 import org.jclouds.b2.domain.B2Object;
 import org.jclouds.b2.domain.B2ObjectList;
@@ -40,8 +44,13 @@ import org.jclouds.b2.domain.MultipartUploadResponse;
 import org.jclouds.b2.domain.UploadFileResponse;
 import org.jclouds.b2.domain.UploadUrlResponse;
 import org.jclouds.b2.domain.UploadPartResponse;
+import org.jclouds.b2.internal.UploadUrlPool;
+import org.jclouds.b2.io.payloads.HexDigitsAtEndPayload;
+import org.jclouds.b2.reference.B2Constants;
+import org.jclouds.b2.reference.B2Headers;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobMetadata;
@@ -75,53 +84,67 @@ import org.jclouds.io.PayloadSlicer;
 import org.jclouds.io.payloads.BaseMutableContentMetadata;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.Hashing;
+import com.google.common.math.LongMath;
 import com.google.common.net.HttpHeaders;
-import com.google.common.util.concurrent.UncheckedExecutionException;
 
 public final class B2BlobStore extends BaseBlobStore {
    private final B2Api api;
    private final BlobToHttpGetOptions blob2ObjectGetOptions;
-   private final LoadingCache<String, Bucket> bucketNameToBucket;
+   private final Cache<String, Bucket> bucketNameToBucket;
+   /** Names recently found not to exist, cached briefly so that repeated misses do not list buckets again. */
+   private final Cache<String, Boolean> missingBuckets;
    private final Supplier<Authorization> auth;
+   private final UploadUrlPool uploadUrlPool;
+   private final ParallelMultipartUploader multipartUploader;
+   private final VersionReaper versionReaper;
+   private final ParallelBlobDownloader parallelDownloader;
+   private final BulkVersionDeleter bulkDeleter;
+   /** Latest known version of each file, possibly without full metadata when populated from listings. */
+   private final Cache<Map.Entry<String, String>, B2Object> fileCache;
 
    @Inject
    B2BlobStore(BlobStoreContext context, BlobUtils blobUtils, Supplier<Location> defaultLocation,
             @Memoized Supplier<Set<? extends Location>> locations, PayloadSlicer slicer, final B2Api api,
-            BlobToHttpGetOptions blob2ObjectGetOptions, @Memoized Supplier<Authorization> auth) {
+            BlobToHttpGetOptions blob2ObjectGetOptions, @Memoized Supplier<Authorization> auth,
+            UploadUrlPool uploadUrlPool, ParallelMultipartUploader multipartUploader, VersionReaper versionReaper,
+            ParallelBlobDownloader parallelDownloader, BulkVersionDeleter bulkDeleter,
+            @Named(B2Constants.PROPERTY_FILE_CACHE_TTL) long fileCacheTtl,
+            @Named(B2Constants.PROPERTY_FILE_CACHE_SIZE) long fileCacheSize) {
       super(context, blobUtils, defaultLocation, locations, slicer);
       this.api = api;
       this.blob2ObjectGetOptions = blob2ObjectGetOptions;
       this.auth = auth;
+      this.uploadUrlPool = uploadUrlPool;
+      this.multipartUploader = multipartUploader;
+      this.versionReaper = versionReaper;
+      this.parallelDownloader = parallelDownloader;
+      this.bulkDeleter = bulkDeleter;
+      this.fileCache = CacheBuilder.newBuilder()
+            .expireAfterWrite(fileCacheTtl, TimeUnit.SECONDS)
+            .maximumSize(fileCacheSize)
+            .build();
       this.bucketNameToBucket = CacheBuilder.newBuilder()
             .expireAfterWrite(5, TimeUnit.MINUTES)
-            .build(new CacheLoader<String, Bucket>() {
-               @Override
-               public Bucket load(String bucketName) {
-                  BucketList list = api.getBucketApi().listBuckets();
-                  for (Bucket bucket : list.buckets()) {
-                     if (bucket.bucketName().equals(bucketName)) {
-                        return bucket;
-                     }
-                  }
-                  throw new ContainerNotFoundException(bucketName, null);
-               }
-            });
+            .build();
+      this.missingBuckets = CacheBuilder.newBuilder()
+            .expireAfterWrite(10, TimeUnit.SECONDS)
+            .build();
    }
 
    @Override
    public PageSet<? extends StorageMetadata> list() {
       ImmutableList.Builder<StorageMetadata> builder = ImmutableList.builder();
       BucketList list = api.getBucketApi().listBuckets();
+      cacheBuckets(list);
       for (Bucket bucket : list.buckets()) {
          builder.add(new StorageMetadataImpl(StorageType.CONTAINER, null, bucket.bucketName(), defaultLocation.get(), null, null, null, null, ImmutableMap.<String, String>of(), null));
       }
@@ -130,13 +153,7 @@ public final class B2BlobStore extends BaseBlobStore {
 
    @Override
    public boolean containerExists(String container) {
-      BucketList list = api.getBucketApi().listBuckets();
-      for (Bucket bucket : list.buckets()) {
-         if (bucket.bucketName().equals(container)) {
-            return true;
-         }
-      }
-      return false;
+      return findBucket(container) != null;
    }
 
    @Override
@@ -150,6 +167,7 @@ public final class B2BlobStore extends BaseBlobStore {
       try {
          Bucket bucket = api.getBucketApi().createBucket(container, bucketType);
          bucketNameToBucket.put(container, bucket);
+         missingBuckets.invalidate(container);
       } catch (B2ResponseException bre) {
          if (bre.getError().code().equals("duplicate_bucket_name")) {
             return false;
@@ -197,32 +215,28 @@ public final class B2BlobStore extends BaseBlobStore {
       Set<String> commonPrefixes = Sets.newHashSet();
       String marker = options.getMarker();
       while (true) {
-         B2ObjectList list = api.getObjectApi().listFileNames(bucket.bucketId(), marker, options.getMaxResults());
+         // Fetch one page at a time, and only as many files as still needed, filtered by prefix and delimiter on the
+         // server so that listing a prefix does not scan the whole bucket.
+         Integer maxFileCount = options.getMaxResults() == null ? null : options.getMaxResults() - size;
+         B2ObjectList list = api.getObjectApi().listFileNames(bucket.bucketId(), marker, maxFileCount, options.getPrefix(), delimiter);
          for (B2ObjectList.Entry entry : list.files()) {
-            // B2 does not support server-side filtering via prefix and delimiter so we emulate it on the client.
-            if (options.getPrefix() != null && !entry.fileName().startsWith(options.getPrefix())) {
-               continue;
-            }
-
-            if (delimiter != null) {
-               String fileName = entry.fileName();
-               int index = entry.fileName().indexOf(delimiter, Strings.nullToEmpty(options.getPrefix()).length());
-               if (index != -1) {
-                  String prefix = entry.fileName().substring(0, index + 1);
-                  if (!commonPrefixes.contains(prefix)) {
-                     commonPrefixes.add(prefix);
-                     ++size;
-                     builder.add(new StorageMetadataImpl(StorageType.RELATIVE_PATH, null, prefix, null, null, null, null, null, ImmutableMap.<String, String>of(), null));
-                  }
-                  continue;
+            if (entry.action() == Action.FOLDER) {
+               if (commonPrefixes.add(entry.fileName())) {
+                  ++size;
+                  builder.add(new StorageMetadataImpl(StorageType.RELATIVE_PATH, null, entry.fileName(), null, null, null, null, null, ImmutableMap.<String, String>of(), null));
                }
+               continue;
             }
 
             if (options.isDetailed()) {
-               BlobMetadata metadata = blobMetadata(container, entry.fileName());
+               // b2_list_file_names returns the full metadata so only fall back to a lookup per file if it is missing
+               B2Object b2Object = toB2Object(bucket.bucketId(), entry);
+               BlobMetadata metadata = b2Object.fileInfo() != null ? toBlobMetadata(container, b2Object) :
+                     blobMetadata(container, entry.fileName());
                if (metadata != null) {
                   ++size;
                   builder.add(metadata);
+                  cacheFileId(container, bucket.bucketId(), entry);
                }
             } else {
                Map<String, String> userMetadata = ImmutableMap.of();
@@ -231,10 +245,11 @@ public final class B2BlobStore extends BaseBlobStore {
                      .build();
                ++size;
                builder.add(new BlobMetadataImpl(null, entry.fileName(), null, null, null, null, entry.uploadTimestamp(), userMetadata, null, container, metadata, entry.size()));
+               cacheFileId(container, bucket.bucketId(), entry);
             }
          }
          marker = list.nextFileName();
-         if (marker == null || options.getMaxResults() == null || size == options.getMaxResults()) {
+         if (marker == null || options.getMaxResults() == null || size >= options.getMaxResults()) {
             break;
          }
       }
@@ -253,49 +268,67 @@ public final class B2BlobStore extends BaseBlobStore {
 
    @Override
    public String putBlob(String container, Blob blob, PutOptions options) {
-      Preconditions.checkArgument(blob.getPayload().isRepeatable(), "B2 requires repeatable payload to calculate SHA1");
-
       if (options.getBlobAccess() != BlobAccess.PRIVATE) {
          throw new UnsupportedOperationException("B2 only supports private access blobs");
       }
 
       if (options.isMultipart()) {
-         return putMultipartBlob(container, blob, options);
+         return putLargeFile(container, blob);
       } else {
-         String contentSha1;
-         try {
-            contentSha1 = ByteStreams2.hashAndClose(blob.getPayload().openStream(), Hashing.sha1()).toString();
-         } catch (IOException ioe) {
-            throw Throwables.propagate(ioe);
-         }
-
          String name = blob.getMetadata().getName();
 
          // B2 versions all files so we store the original fileId to delete it after the upload succeeds
-         String oldFileId = getFileId(container, name);
+         String oldFileId = getCurrentFileId(container, name);
 
          Bucket bucket = getBucket(container);
-         UploadUrlResponse uploadUrl = api.getObjectApi().getUploadUrl(bucket.bucketId());
-         UploadFileResponse uploadFile = api.getObjectApi().uploadFile(uploadUrl, name, contentSha1, blob.getMetadata().getUserMetadata(), blob.getPayload());
+         // hash while sending so that the payload is only read once
+         HexDigitsAtEndPayload payload = new HexDigitsAtEndPayload(blob.getPayload());
+         UploadUrlResponse uploadUrl = uploadUrlPool.acquireUploadUrl(bucket.bucketId());
+         UploadFileResponse uploadFile;
+         try {
+            uploadFile = api.getObjectApi().uploadFile(uploadUrl, name, B2Headers.HEX_DIGITS_AT_END, blob.getMetadata().getUserMetadata(), payload);
+         } catch (RuntimeException re) {
+            uploadUrlPool.discard(uploadUrl.authorizationToken());
+            throw re;
+         }
+         uploadUrlPool.releaseUploadUrl(uploadUrl);
+         // the upload response lacks the upload timestamp so blobMetadata will still fetch the full metadata
+         fileCache.put(Maps.immutableEntry(container, name), B2Object.create(uploadFile.fileId(), uploadFile.fileName(),
+               uploadFile.accountId(), uploadFile.bucketId(), uploadFile.contentLength(), uploadFile.contentSha1(),
+               uploadFile.contentType(), null, Action.UPLOAD, null, null, null));
 
          if (oldFileId != null) {
-            api.getObjectApi().deleteFileVersion(name, oldFileId);
+            versionReaper.delete(name, oldFileId);
          }
 
-         return uploadFile.contentSha1();  // B2 does not support ETag, fake it with SHA-1
+         return payload.getContentSha1().toString();  // B2 does not support ETag, fake it with SHA-1
       }
    }
 
-   @Override
-   public BlobMetadata blobMetadata(String container, String name) {
-      String fileId = getFileId(container, name);
-      if (fileId == null) {
-         return null;
+   /** Upload parts concurrently while hashing them in a single pass, which also supports non-repeatable payloads. */
+   private String putLargeFile(String container, Blob blob) {
+      long partSize = getMinimumMultipartPartSize();
+      Long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
+      if (contentLength != null) {
+         partSize = Math.max(partSize, LongMath.divide(contentLength, getMaximumNumberOfParts(), RoundingMode.CEILING));
       }
+      fileCache.invalidate(Maps.immutableEntry(container, blob.getMetadata().getName()));
+      return multipartUploader.upload(getBucket(container), blob, partSize);
+   }
 
-      B2Object b2Object = api.getObjectApi().getFileInfo(fileId);
-      if (b2Object == null) {
-         return null;
+   @Override
+   public BlobMetadata blobMetadata(String container, String name) {
+      Map.Entry<String, String> key = Maps.immutableEntry(container, name);
+      B2Object b2Object = fileCache.getIfPresent(key);
+      if (b2Object == null || b2Object.fileInfo() == null || b2Object.uploadTimestamp() == null) {
+         // ensure that a missing bucket throws ContainerNotFoundException
+         getBucket(container);
+         b2Object = api.getObjectApi().getFileInfoByName(container, name);
+         if (b2Object == null) {
+            fileCache.invalidate(key);
+            return null;
+         }
+         fileCache.put(key, b2Object);
       }
 
       return toBlobMetadata(container, b2Object);
@@ -324,14 +357,34 @@ public final class B2BlobStore extends BaseBlobStore {
       return blob;
    }
 
+   /**
+    * Download a blob into a file by fetching ranges of it over several connections concurrently and verifying its SHA-1
+    * afterwards.  This is faster than getBlob for large blobs.
+    * <p>
+    * This is a B2-specific extension of {@link org.jclouds.blobstore.BlobStore}, reached by casting the result of
+    * {@code BlobStoreContext.getBlobStore()} to {@code B2BlobStore}.  The ranges are sized by
+    * {@link B2Constants#PROPERTY_DOWNLOAD_RANGE_SIZE} and at most {@link B2Constants#PROPERTY_MAX_IN_FLIGHT_RANGES}
+    * of them are fetched at once.  The destination is deleted if the download fails.
+    */
+   public void downloadBlob(String container, String name, File destination) {
+      // ensure that a missing bucket throws ContainerNotFoundException
+      getBucket(container);
+      parallelDownloader.download(container, name, destination);
+   }
+
    @Override
    public void removeBlob(String container, String name) {
-      String fileId = getFileId(container, name);
+      String fileId = getCurrentFileId(container, name);
       if (fileId == null) {
          return;
       }
 
-      api.getObjectApi().deleteFileVersion(name, fileId);
+      fileCache.invalidate(Maps.immutableEntry(container, name));
+      try {
+         api.getObjectApi().deleteFileVersion(name, fileId);
+      } catch (KeyNotFoundException knfe) {
+         // another client deleted this version concurrently
+      }
    }
 
    @Override
@@ -344,25 +397,60 @@ public final class B2BlobStore extends BaseBlobStore {
       throw new UnsupportedOperationException("B2 does not support object access control");
    }
 
+   /**
+    * Recursively clearing a whole container deletes every version of every file and cancels every unfinished large
+    * file in the bucket, including uploads in progress by other clients.
+    */
+   @Override
+   public void clearContainer(String container, ListContainerOptions options) {
+      if (!options.isRecursive() || options.getDir() != null || options.getPrefix() != null ||
+            options.getDelimiter() != null) {
+         super.clearContainer(container, options);
+         return;
+      }
+
+      // Delete every version rather than only the latest, which would expose the previous version of each file.
+      versionReaper.flush();
+      try {
+         bulkDeleter.deleteAllVersions(getBucket(container).bucketId());
+      } finally {
+         invalidateFiles(container);
+      }
+   }
+
    @Override
    public void deleteContainer(String container) {
-      // Explicitly abort multi-part uploads which B2 requires to delete a bucket but other providers do not.
+      // B2 cannot delete buckets which still contain old versions or unfinished large files, which other providers
+      // do not require.
       try {
-         for (MultipartUpload upload : listMultipartUploads(container)) {
-            abortMultipartUpload(upload);
+         clearContainer(container);
+         if (deleteAndVerifyContainerGone(container)) {
+            return;
          }
       } catch (ContainerNotFoundException cnfe) {
-         // ignore
+         return;
       }
 
+      // a file was written concurrently, clear again and retry like other providers
       super.deleteContainer(container);
    }
 
+   private void invalidateFiles(String container) {
+      for (Map.Entry<String, String> key : fileCache.asMap().keySet()) {
+         if (key.getKey().equals(container)) {
+            fileCache.invalidate(key);
+         }
+      }
+   }
+
    @Override
    protected boolean deleteAndVerifyContainerGone(String container) {
       Bucket bucket = getBucket(container);
       try {
          api.getBucketApi().deleteBucket(bucket.bucketId());
+         uploadUrlPool.discardUploadUrls(bucket.bucketId());
+         bucketNameToBucket.invalidate(container);
+         missingBuckets.put(container, Boolean.TRUE);
       } catch (B2ResponseException bre) {
          if (bre.getError().code().equals("cannot_delete_non_empty_bucket")) {
             return false;
@@ -382,6 +470,7 @@ public final class B2BlobStore extends BaseBlobStore {
    @Override
    public void abortMultipartUpload(MultipartUpload mpu) {
       api.getMultipartApi().cancelLargeFile(mpu.id());
+      uploadUrlPool.discardUploadPartUrls(mpu.id());
    }
 
    @Override
@@ -391,6 +480,8 @@ public final class B2BlobStore extends BaseBlobStore {
          sha1.add(part.partETag());
       }
       B2Object b2Object = api.getMultipartApi().finishLargeFile(mpu.id(), sha1.build());
+      uploadUrlPool.discardUploadPartUrls(mpu.id());
+      fileCache.put(Maps.immutableEntry(mpu.containerName(), mpu.blobName()), b2Object);
       return b2Object.contentSha1();  // this is always "none"
    }
 
@@ -405,8 +496,15 @@ public final class B2BlobStore extends BaseBlobStore {
          throw Throwables.propagate(ioe);
       }
 
-      GetUploadPartResponse getUploadPart = api.getMultipartApi().getUploadPartUrl(mpu.id());
-      UploadPartResponse uploadPart = api.getMultipartApi().uploadPart(getUploadPart, partNumber, contentSha1, payload);
+      GetUploadPartResponse getUploadPart = uploadUrlPool.acquireUploadPartUrl(mpu.id());
+      UploadPartResponse uploadPart;
+      try {
+         uploadPart = api.getMultipartApi().uploadPart(getUploadPart, partNumber, contentSha1, payload);
+      } catch (RuntimeException re) {
+         uploadUrlPool.discard(getUploadPart.authorizationToken());
+         throw re;
+      }
+      uploadUrlPool.releaseUploadPartUrl(getUploadPart);
 
       return MultipartPart.create(uploadPart.partNumber(), uploadPart.contentLength(), uploadPart.contentSha1());
    }
@@ -457,19 +555,46 @@ public final class B2BlobStore extends BaseBlobStore {
    }
 
    private Bucket getBucket(String container) {
-      Bucket bucket;
-      try {
-         bucket = bucketNameToBucket.getUnchecked(container);
-      } catch (UncheckedExecutionException uee) {
-         if (uee.getCause() instanceof ContainerNotFoundException) {
-            throw (ContainerNotFoundException) uee.getCause();
-         }
-         throw uee;
+      Bucket bucket = findBucket(container);
+      if (bucket == null) {
+         throw new ContainerNotFoundException(container, null);
+      }
+      return bucket;
+   }
+
+   /** @return the bucket with this name, or null if it does not exist */
+   private Bucket findBucket(String container) {
+      Bucket bucket = bucketNameToBucket.getIfPresent(container);
+      if (bucket != null) {
+         return bucket;
+      }
+      if (missingBuckets.getIfPresent(container) != null) {
+         return null;
+      }
+
+      // Load every bucket with one call when the cache is cold, otherwise only look up the missing name.
+      BucketList list = bucketNameToBucket.size() == 0 ? api.getBucketApi().listBuckets() :
+            api.getBucketApi().listBuckets(container);
+      cacheBuckets(list);
+      bucket = bucketNameToBucket.getIfPresent(container);
+      if (bucket == null) {
+         missingBuckets.put(container, Boolean.TRUE);
       }
       return bucket;
    }
 
-   private String getFileId(String container, String name) {
+   private void cacheBuckets(BucketList list) {
+      for (Bucket bucket : list.buckets()) {
+         bucketNameToBucket.put(bucket.bucketName(), bucket);
+         missingBuckets.invalidate(bucket.bucketName());
+      }
+   }
+
+   /**
+    * Look up the latest version of a file, bypassing the file cache.  Deleting a version found in the cache could
+    * delete an older version when another client has uploaded a newer one since.
+    */
+   private String getCurrentFileId(String container, String name) {
       Bucket bucket = getBucket(container);
       B2ObjectList list = api.getObjectApi().listFileNames(bucket.bucketId(), name, 1);
       if (list.files().isEmpty()) {
@@ -481,9 +606,24 @@ public final class B2BlobStore extends BaseBlobStore {
          return null;
       }
 
+      cacheFileId(container, bucket.bucketId(), entry);
       return entry.fileId();
    }
 
+   /** Cache the file from a listing without replacing full metadata already cached for the same version. */
+   private void cacheFileId(String container, String bucketId, B2ObjectList.Entry entry) {
+      Map.Entry<String, String> key = Maps.immutableEntry(container, entry.fileName());
+      B2Object cached = fileCache.getIfPresent(key);
+      if (cached == null || !cached.fileId().equals(entry.fileId()) || entry.fileInfo() != null) {
+         fileCache.put(key, toB2Object(bucketId, entry));
+      }
+   }
+
+   private static B2Object toB2Object(String bucketId, B2ObjectList.Entry entry) {
+      return B2Object.create(entry.fileId(), entry.fileName(), null, bucketId, entry.size(), entry.contentSha1(),
+            entry.contentType(), entry.fileInfo(), entry.action(), entry.uploadTimestamp().getTime(), null, null);
+   }
+
    private MutableBlobMetadata toBlobMetadata(String container, B2Object b2Object) {
       MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
       metadata.setContainer(container);
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.jclouds.b2.reference.B2Constants.PROPERTY_MAX_IN_FLIGHT_DELETES;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.b2.B2Api;
+import org.jclouds.b2.domain.Action;
+import org.jclouds.b2.domain.B2ObjectList;
+import org.jclouds.blobstore.KeyNotFoundException;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Deletes every version in a bucket, including hide markers and unfinished large files, by walking
+ * b2_list_file_versions and issuing the deletes concurrently.  Requests which B2 rejects as too many or busy are
+ * retried with backoff by B2RetryHandler.  Futures are not retained so memory use is independent of the number of
+ * versions.
+ */
+@Singleton
+final class BulkVersionDeleter {
+   private static final int MAX_FILE_COUNT = 1000;
+
+   private final B2Api api;
+   private final ListeningExecutorService executor;
+   private final int maxInFlightDeletes;
+
+   @Inject
+   BulkVersionDeleter(B2Api api, @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executor,
+         @Named(PROPERTY_MAX_IN_FLIGHT_DELETES) int maxInFlightDeletes) {
+      this.api = api;
+      this.executor = executor;
+      this.maxInFlightDeletes = maxInFlightDeletes;
+   }
+
+   void deleteAllVersions(String bucketId) {
+      Semaphore inFlight = new Semaphore(maxInFlightDeletes);
+      AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      try {
+         String startFileId = null;
+         String startFileName = null;
+         do {
+            B2ObjectList list = api.getObjectApi().listFileVersions(bucketId, startFileId, startFileName,
+                  MAX_FILE_COUNT);
+            for (B2ObjectList.Entry entry : list.files()) {
+               inFlight.acquire();
+               if (failure.get() != null) {
+                  inFlight.release();
+                  break;
+               }
+               try {
+                  executor.execute(new DeleteVersion(entry, inFlight, failure));
+               } catch (RejectedExecutionException ree) {
+                  inFlight.release();
+                  throw ree;
+               }
+            }
+            startFileId = list.nextFileId();
+            startFileName = list.nextFileName();
+         } while (startFileName != null && failure.get() == null);
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ie);
+      } finally {
+         // wait for outstanding deletes
+         inFlight.acquireUninterruptibly(maxInFlightDeletes);
+      }
+
+      if (failure.get() != null) {
+         throw Throwables.propagate(failure.get());
+      }
+   }
+
+   private final class DeleteVersion implements Runnable {
+      private final B2ObjectList.Entry entry;
+      private final Semaphore inFlight;
+      private final AtomicReference<Throwable> failure;
+
+      DeleteVersion(B2ObjectList.Entry entry, Semaphore inFlight, AtomicReference<Throwable> failure) {
+         this.entry = entry;
+         this.inFlight = inFlight;
+         this.failure = failure;
+      }
+
+      @Override
+      public void run() {
+         try {
+            if (entry.action() == Action.START) {
+               api.getMultipartApi().cancelLargeFile(entry.fileId());
+            } else {
+               api.getObjectApi().deleteFileVersion(entry.fileName(), entry.fileId());
+            }
+         } catch (KeyNotFoundException knfe) {
+            // deleted concurrently
+         } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+         } finally {
+            inFlight.release();
+         }
+      }
+   }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.jclouds.b2.reference.B2Constants.PROPERTY_DOWNLOAD_RANGE_SIZE;
+import static org.jclouds.b2.reference.B2Constants.PROPERTY_MAX_IN_FLIGHT_RANGES;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.b2.B2Api;
+import org.jclouds.b2.domain.B2Object;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.functions.BlobToHttpGetOptions;
+import org.jclouds.blobstore.options.GetOptions;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Downloads a file by fetching ranges of it concurrently, each on its own connection, and writing them at their
+ * offsets into a pre-sized destination file.  The SHA-1 of the result is verified when B2 knows it, i.e., for files
+ * uploaded in a single part or large files with the large_file_sha1 file info.  The first failed range stops the
+ * download and the partial file is deleted once no range can still write to it.
+ */
+@Singleton
+final class ParallelBlobDownloader {
+   private static final String LARGE_FILE_SHA1 = "large_file_sha1";
+
+   private final B2Api api;
+   private final BlobToHttpGetOptions blob2ObjectGetOptions;
+   private final ListeningExecutorService executor;
+   private final long rangeSize;
+   private final int maxInFlightRanges;
+
+   @Inject
+   ParallelBlobDownloader(B2Api api, BlobToHttpGetOptions blob2ObjectGetOptions,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executor,
+         @Named(PROPERTY_DOWNLOAD_RANGE_SIZE) long rangeSize,
+         @Named(PROPERTY_MAX_IN_FLIGHT_RANGES) int maxInFlightRanges) {
+      this.api = api;
+      this.blob2ObjectGetOptions = blob2ObjectGetOptions;
+      this.executor = executor;
+      this.rangeSize = rangeSize;
+      this.maxInFlightRanges = maxInFlightRanges;
+   }
+
+   void download(String container, String name, File destination) {
+      B2Object b2Object = api.getObjectApi().getFileInfoByName(container, name);
+      if (b2Object == null) {
+         throw new KeyNotFoundException(container, name, "while downloading");
+      }
+      Long size = b2Object.contentLength();
+
+      RandomAccessFile file = null;
+      AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      List<ListenableFuture<Void>> futures = Lists.newArrayList();
+      boolean success = false;
+      try {
+         file = new RandomAccessFile(destination, "rw");
+         FileChannel channel = file.getChannel();
+         if (size == null) {
+            // the file cannot be split into ranges without its length so fetch it in a single request
+            file.setLength(0);
+            new DownloadRange(container, name, b2Object.fileId(), 0, null, channel, failure).call();
+         } else {
+            file.setLength(size);
+            final Semaphore inFlight = new Semaphore(maxInFlightRanges);
+            Runnable release = new Runnable() {
+               @Override
+               public void run() {
+                  inFlight.release();
+               }
+            };
+            for (long offset = 0; offset < size; offset += rangeSize) {
+               inFlight.acquire();
+               // stop submitting once a range failed, its failure is rethrown when collecting the results below
+               if (failure.get() != null) {
+                  break;
+               }
+               ListenableFuture<Void> future = executor.submit(new DownloadRange(container, name, b2Object.fileId(),
+                     offset, Math.min(offset + rangeSize, size) - 1, channel, failure));
+               future.addListener(release, MoreExecutors.sameThreadExecutor());
+               futures.add(future);
+            }
+            Futures.allAsList(futures).get();
+         }
+         channel.force(false);
+         file.close();
+
+         verify(b2Object, destination);
+         success = true;
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ie);
+      } catch (ExecutionException ee) {
+         throw Throwables.propagate(ee.getCause());
+      } finally {
+         if (!success) {
+            cancel(futures, failure);
+         }
+         try {
+            Closeables.close(file, true);
+         } catch (IOException ioe) {
+            // already swallowed
+         }
+         if (!success) {
+            destination.delete();
+         }
+      }
+   }
+
+   /**
+    * Stop the outstanding ranges and wait until none of them can still write to the destination: ranges which have
+    * not started yet return immediately and running ranges stop after their current buffer.
+    */
+   private static void cancel(List<ListenableFuture<Void>> futures, AtomicReference<Throwable> failure) {
+      failure.compareAndSet(null, new CancellationException());
+      try {
+         Uninterruptibles.getUninterruptibly(Futures.successfulAsList(futures));
+      } catch (ExecutionException ee) {
+         // successfulAsList does not fail
+      }
+   }
+
+   private static void verify(B2Object b2Object, File destination) throws IOException {
+      String expected = b2Object.contentSha1();
+      if ((expected == null || "none".equals(expected)) && b2Object.fileInfo() != null) {
+         expected = b2Object.fileInfo().get(LARGE_FILE_SHA1);
+      }
+      if (expected == null || "none".equals(expected)) {
+         return;
+      }
+      HashCode actual = Files.asByteSource(destination).hash(Hashing.sha1());
+      if (!actual.toString().equalsIgnoreCase(expected)) {
+         throw new IOException("SHA-1 mismatch downloading " + b2Object.fileName() + ": expected " + expected +
+               " but was " + actual);
+      }
+   }
+
+   private final class DownloadRange implements Callable<Void> {
+      private final String container;
+      private final String name;
+      private final String fileId;
+      private final long start;
+      /** Last byte of the range, or null to fetch the whole file. */
+      private final Long end;
+      private final FileChannel channel;
+      private final AtomicReference<Throwable> failure;
+
+      DownloadRange(String container, String name, String fileId, long start, Long end, FileChannel channel,
+            AtomicReference<Throwable> failure) {
+         this.container = container;
+         this.name = name;
+         this.fileId = fileId;
+         this.start = start;
+         this.end = end;
+         this.channel = channel;
+         this.failure = failure;
+      }
+
+      @Override
+      public Void call() throws IOException {
+         if (failure.get() != null) {
+            return null;
+         }
+         InputStream is = null;
+         try {
+            B2Object range = end == null ? api.getObjectApi().downloadFileByName(container, name) :
+                  api.getObjectApi().downloadFileByName(container, name,
+                        blob2ObjectGetOptions.apply(new GetOptions().range(start, end)));
+            if (range == null || !fileId.equals(range.fileId())) {
+               throw new IOException(name + " changed while downloading");
+            }
+            is = range.payload().openStream();
+            byte[] buffer = new byte[64 * 1024];
+            long position = start;
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+               if (failure.get() != null) {
+                  return null;
+               }
+               ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+               while (byteBuffer.hasRemaining()) {
+                  position += channel.write(byteBuffer, position);
+               }
+            }
+            if (end != null && position != end + 1) {
+               throw new IOException("short read downloading " + name + ": expected " + (end + 1 - start) +
+                     " bytes at offset " + start + " but was " + (position - start));
+            }
+            return null;
+         } catch (IOException ioe) {
+            failure.compareAndSet(null, ioe);
+            throw ioe;
+         } catch (RuntimeException re) {
+            failure.compareAndSet(null, re);
+            throw re;
+         } finally {
+            Closeables.closeQuietly(is);
+         }
+      }
+   }
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.jclouds.b2.reference.B2Constants.PROPERTY_MAX_IN_FLIGHT_PARTS;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.b2.B2Api;
+import org.jclouds.b2.domain.B2Object;
+import org.jclouds.b2.domain.Bucket;
+import org.jclouds.b2.domain.GetUploadPartResponse;
+import org.jclouds.b2.domain.MultipartUploadResponse;
+import org.jclouds.b2.domain.UploadFileResponse;
+import org.jclouds.b2.domain.UploadPartResponse;
+import org.jclouds.b2.domain.UploadUrlResponse;
+import org.jclouds.b2.internal.UploadUrlPool;
+import org.jclouds.b2.io.payloads.HexDigitsAtEndPayload;
+import org.jclouds.b2.reference.B2Headers;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Uploads a large file by slicing its payload into parts and uploading several parts concurrently, each on its own
+ * upload part URL.  The payload is read exactly once: each part is buffered and hashed in a single pass so
+ * non-repeatable payloads are supported.  At most {@code maxInFlightParts} buffers exist at any time which bounds
+ * both memory usage and the number of concurrent requests for each upload; buffers are sized from the content length
+ * when it is known.  Payloads which fit in a single part are uploaded as regular files, streaming them when their
+ * length is known up front.
+ */
+@Singleton
+final class ParallelMultipartUploader {
+   private final B2Api api;
+   private final UploadUrlPool uploadUrlPool;
+   private final ListeningExecutorService executor;
+   private final int maxInFlightParts;
+
+   @Inject
+   ParallelMultipartUploader(B2Api api, UploadUrlPool uploadUrlPool,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executor,
+         @Named(PROPERTY_MAX_IN_FLIGHT_PARTS) int maxInFlightParts) {
+      this.api = api;
+      this.uploadUrlPool = uploadUrlPool;
+      this.executor = executor;
+      // one buffer is filled while the others are uploading, and the first two are read before starting the upload
+      this.maxInFlightParts = Math.max(2, maxInFlightParts);
+   }
+
+   /** @return the SHA-1 of the blob for single part uploads or "none" for large files */
+   String upload(Bucket bucket, Blob blob, long partSize) {
+      String name = blob.getMetadata().getName();
+      ContentMetadata contentMetadata = blob.getMetadata().getContentMetadata();
+      Long contentLength = contentMetadata.getContentLength();
+      if (contentLength != null && contentLength <= partSize) {
+         // B2 requires at least two parts for large files so upload small payloads directly, without buffering
+         HexDigitsAtEndPayload payload = new HexDigitsAtEndPayload(blob.getPayload());
+         uploadFile(bucket, blob, payload, B2Headers.HEX_DIGITS_AT_END);
+         return payload.getContentSha1().toString();
+      }
+
+      BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(maxInFlightParts);
+      // size buffers from the remaining content when it is known so that the last parts do not over-allocate
+      long remaining = contentLength == null ? Long.MAX_VALUE : contentLength;
+      List<ListenableFuture<String>> futures = Lists.newArrayList();
+
+      InputStream is = null;
+      String fileId = null;
+      try {
+         is = blob.getPayload().openStream();
+
+         byte[] buffer = new byte[bufferSize(partSize, remaining)];
+         Hasher hasher = Hashing.sha1().newHasher();
+         int length = fill(is, buffer, 0, hasher);
+         remaining -= length;
+         byte[] nextBuffer = null;
+         Hasher nextHasher = Hashing.sha1().newHasher();
+         int nextLength = 0;
+         if (length == buffer.length && remaining > 0) {
+            // read ahead a single byte so that a payload of exactly one part does not allocate a second buffer
+            int next = is.read();
+            if (next != -1) {
+               nextBuffer = new byte[bufferSize(partSize, remaining)];
+               nextBuffer[0] = (byte) next;
+               nextHasher.putByte((byte) next);
+               nextLength = 1 + fill(is, nextBuffer, 1, nextHasher);
+               remaining -= nextLength;
+            }
+         }
+         if (nextLength == 0) {
+            return uploadFile(bucket, blob, toPayload(buffer, length, contentMetadata.getContentType()),
+                  hasher.hash().toString());
+         }
+
+         MultipartUploadResponse response = api.getMultipartApi().startLargeFile(bucket.bucketId(), name,
+               contentMetadata.getContentType(), blob.getMetadata().getUserMetadata());
+         fileId = response.fileId();
+         int allocatedBuffers = 2;
+
+         AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+         futures.add(executor.submit(new UploadPart(fileId, 1, buffer, length, hasher.hash().toString(), buffers,
+               failure)));
+         buffer = nextBuffer;
+         hasher = nextHasher;
+         length = nextLength;
+         int partNumber = 2;
+         // stop reading early if a part failed, the failure is rethrown when collecting the results below
+         while (length > 0 && failure.get() == null) {
+            futures.add(executor.submit(new UploadPart(fileId, partNumber++, buffer, length, hasher.hash().toString(),
+                  buffers, failure)));
+            if (remaining == 0) {
+               break;
+            }
+
+            buffer = buffers.poll();
+            if (buffer == null) {
+               if (allocatedBuffers < maxInFlightParts) {
+                  buffer = new byte[bufferSize(partSize, remaining)];
+                  ++allocatedBuffers;
+               } else {
+                  buffer = buffers.take();
+               }
+            }
+            hasher = Hashing.sha1().newHasher();
+            length = fill(is, buffer, 0, hasher);
+            remaining -= length;
+         }
+
+         List<String> sha1s = Futures.allAsList(futures).get();
+         B2Object b2Object = api.getMultipartApi().finishLargeFile(fileId, sha1s);
+         uploadUrlPool.discardUploadPartUrls(fileId);
+         return b2Object.contentSha1();
+      } catch (IOException ioe) {
+         cancel(fileId, futures);
+         throw Throwables.propagate(ioe);
+      } catch (InterruptedException ie) {
+         cancel(fileId, futures);
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ie);
+      } catch (ExecutionException ee) {
+         cancel(fileId, futures);
+         throw Throwables.propagate(ee.getCause());
+      } catch (RuntimeException re) {
+         cancel(fileId, futures);
+         throw re;
+      } finally {
+         Closeables.closeQuietly(is);
+      }
+   }
+
+   private String uploadFile(Bucket bucket, Blob blob, Payload payload, String contentSha1) {
+      UploadUrlResponse uploadUrl = uploadUrlPool.acquireUploadUrl(bucket.bucketId());
+      UploadFileResponse uploadFile;
+      try {
+         uploadFile = api.getObjectApi().uploadFile(uploadUrl, blob.getMetadata().getName(), contentSha1,
+               blob.getMetadata().getUserMetadata(), payload);
+      } catch (RuntimeException re) {
+         uploadUrlPool.discard(uploadUrl.authorizationToken());
+         throw re;
+      }
+      uploadUrlPool.releaseUploadUrl(uploadUrl);
+      return uploadFile.contentSha1();
+   }
+
+   /** Stop the parts still uploading before cancelling the large file, which would otherwise fail them anyway. */
+   private void cancel(String fileId, List<ListenableFuture<String>> futures) {
+      for (ListenableFuture<String> future : futures) {
+         future.cancel(true);
+      }
+      if (fileId == null) {
+         return;
+      }
+      try {
+         api.getMultipartApi().cancelLargeFile(fileId);
+      } catch (RuntimeException re) {
+         // propagate the original failure instead
+      }
+      uploadUrlPool.discardUploadPartUrls(fileId);
+   }
+
+   private static int bufferSize(long partSize, long remaining) {
+      return Ints.checkedCast(Math.min(partSize, remaining));
+   }
+
+   /** Fill the buffer from the stream while hashing what was read, returning the number of bytes read. */
+   private static int fill(InputStream is, byte[] buffer, int offset, Hasher hasher) throws IOException {
+      int length = ByteStreams.read(is, buffer, offset, buffer.length - offset);
+      hasher.putBytes(buffer, offset, length);
+      return length;
+   }
+
+   private static Payload toPayload(byte[] buffer, int length, String contentType) {
+      Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(buffer).slice(0, length));
+      payload.getContentMetadata().setContentLength((long) length);
+      payload.getContentMetadata().setContentType(contentType);
+      return payload;
+   }
+
+   private final class UploadPart implements Callable<String> {
+      private final String fileId;
+      private final int partNumber;
+      private final byte[] buffer;
+      private final int length;
+      private final String contentSha1;
+      private final BlockingQueue<byte[]> buffers;
+      private final AtomicReference<RuntimeException> failure;
+
+      UploadPart(String fileId, int partNumber, byte[] buffer, int length, String contentSha1,
+            BlockingQueue<byte[]> buffers, AtomicReference<RuntimeException> failure) {
+         this.fileId = fileId;
+         this.partNumber = partNumber;
+         this.buffer = buffer;
+         this.length = length;
+         this.contentSha1 = contentSha1;
+         this.buffers = buffers;
+         this.failure = failure;
+      }
+
+      @Override
+      public String call() {
+         try {
+            GetUploadPartResponse uploadUrl = uploadUrlPool.acquireUploadPartUrl(fileId);
+            UploadPartResponse uploadPart;
+            try {
+               uploadPart = api.getMultipartApi().uploadPart(uploadUrl, partNumber, contentSha1,
+                     toPayload(buffer, length, null));
+            } catch (RuntimeException re) {
+               uploadUrlPool.discard(uploadUrl.authorizationToken());
+               throw re;
+            }
+            uploadUrlPool.releaseUploadPartUrl(uploadUrl);
+            return uploadPart.contentSha1();
+         } catch (RuntimeException re) {
+            failure.compareAndSet(null, re);
+            throw re;
+         } finally {
+            buffers.offer(buffer);
+         }
+      }
+   }
+}
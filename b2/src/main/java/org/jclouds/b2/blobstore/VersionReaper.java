@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.jclouds.b2.reference.B2Constants.PROPERTY_VERSION_REAPER_ENABLED;
+import static org.jclouds.b2.reference.B2Constants.PROPERTY_VERSION_REAPER_QUEUE_SIZE;
+import static org.jclouds.b2.reference.B2Constants.PROPERTY_VERSION_REAPER_THREADS;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.b2.B2Api;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.logging.Logger;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Deletes file versions superseded by an overwrite.  When enabled, putBlob enqueues the previous version and returns
+ * immediately while a few tasks on the user executor delete queued versions in batches, exiting when the queue is
+ * empty.  When the bounded queue is full or the reaper is disabled, versions are deleted on the calling thread instead.
+ * Queued versions are deleted before the context closes.
+ */
+@Singleton
+public final class VersionReaper implements Closeable {
+   private static final int BATCH_SIZE = 100;
+
+   @Resource
+   private Logger logger = Logger.NULL;
+
+   private final B2Api api;
+   private final ListeningExecutorService executor;
+   private final boolean enabled;
+   private final int maxWorkers;
+   private final BlockingQueue<FileVersion> queue;
+   /** Has one party for flush and one for each batch being deleted, so that flush can wait for in-flight batches. */
+   private final Phaser inFlight = new Phaser(1);
+   private final Object flushLock = new Object();
+   private final AtomicLong deleted = new AtomicLong();
+   private final AtomicLong failed = new AtomicLong();
+   private volatile boolean closed;
+   private int workers;  // guarded by this
+
+   @Inject
+   VersionReaper(B2Api api, @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executor,
+         @Named(PROPERTY_VERSION_REAPER_ENABLED) boolean enabled,
+         @Named(PROPERTY_VERSION_REAPER_QUEUE_SIZE) int queueSize,
+         @Named(PROPERTY_VERSION_REAPER_THREADS) int maxWorkers) {
+      this.api = api;
+      this.executor = executor;
+      this.enabled = enabled;
+      this.maxWorkers = maxWorkers;
+      this.queue = new ArrayBlockingQueue<FileVersion>(queueSize);
+   }
+
+   /**
+    * Delete a file version, either in the background or on the calling thread.  Failures are only propagated when the
+    * reaper is disabled.
+    */
+   public void delete(String fileName, String fileId) {
+      if (!enabled) {
+         try {
+            api.getObjectApi().deleteFileVersion(fileName, fileId);
+         } catch (KeyNotFoundException knfe) {
+            // another client already deleted this version
+         }
+         deleted.incrementAndGet();
+         return;
+      }
+      FileVersion version = new FileVersion(fileName, fileId);
+      if (closed || !queue.offer(version)) {
+         deleteNow(version);
+         return;
+      }
+      startWorker();
+   }
+
+   /**
+    * Delete all queued versions on the calling thread and wait for the batches already taken by workers, so that
+    * every version enqueued before this call is deleted when it returns.
+    */
+   public void flush() {
+      List<FileVersion> versions = Lists.newArrayList();
+      queue.drainTo(versions);
+      for (FileVersion version : versions) {
+         deleteNow(version);
+      }
+      // workers register before taking a batch so any batch taken before the drain above is still registered
+      synchronized (flushLock) {
+         inFlight.awaitAdvance(inFlight.arrive());
+      }
+   }
+
+   /** Delete all queued versions and wait for the workers.  Later deletes happen on the calling thread. */
+   @PreDestroy
+   @Override
+   public void close() {
+      closed = true;
+      flush();
+   }
+
+   /** @return the number of versions waiting to be deleted */
+   public int getQueueDepth() {
+      return queue.size();
+   }
+
+   /** @return the number of versions deleted since the context started */
+   public long getDeletedCount() {
+      return deleted.get();
+   }
+
+   /** @return the number of versions which could not be deleted */
+   public long getFailedCount() {
+      return failed.get();
+   }
+
+   private void startWorker() {
+      synchronized (this) {
+         if (workers >= maxWorkers) {
+            // a running worker will take the version, see Worker.stop
+            return;
+         }
+         ++workers;
+      }
+      try {
+         executor.execute(new Worker());
+      } catch (RejectedExecutionException ree) {
+         synchronized (this) {
+            --workers;
+         }
+         // the executor is shutting down so delete the queued versions ourselves
+         flush();
+      }
+   }
+
+   private void deleteNow(FileVersion version) {
+      try {
+         api.getObjectApi().deleteFileVersion(version.fileName, version.fileId);
+         deleted.incrementAndGet();
+      } catch (KeyNotFoundException knfe) {
+         // another client already deleted this version
+         deleted.incrementAndGet();
+      } catch (RuntimeException re) {
+         failed.incrementAndGet();
+         logger.warn(re, "could not delete version %s of %s", version.fileId, version.fileName);
+      }
+   }
+
+   private final class Worker implements Runnable {
+      @Override
+      public void run() {
+         List<FileVersion> batch = Lists.newArrayListWithCapacity(BATCH_SIZE);
+         do {
+            inFlight.register();
+            try {
+               queue.drainTo(batch, BATCH_SIZE);
+               for (FileVersion version : batch) {
+                  deleteNow(version);
+               }
+            } finally {
+               inFlight.arriveAndDeregister();
+            }
+            batch.clear();
+         } while (!stop());
+      }
+
+      /** Exit once the queue is empty, checked under the lock so that a concurrent delete sees us or we see it. */
+      private boolean stop() {
+         synchronized (VersionReaper.this) {
+            if (!queue.isEmpty()) {
+               return false;
+            }
+            --workers;
+            return true;
+         }
+      }
+   }
+
+   private static final class FileVersion {
+      private final String fileName;
+      private final String fileId;
+
+      FileVersion(String fileName, String fileId) {
+         this.fileName = fileName;
+         this.fileId = fileId;
+      }
+   }
+}
@@ -61,6 +61,8 @@ public final class B2HttpApiModule extends HttpApiModule<B2Api> {
 
    @Override
    protected void bindRetryHandlers() {
+      // B2 signals rate limiting with 429 which must back off like 503
+      bind(HttpRetryHandler.class).annotatedWith(ClientError.class).to(B2RetryHandler.class);
       bind(HttpRetryHandler.class).annotatedWith(ServerError.class).to(B2RetryHandler.class);
    }
 
@@ -20,7 +20,9 @@ import com.google.common.base.CaseFormat;
 
 public enum Action {
    UPLOAD,
-   HIDE;
+   HIDE,
+   FOLDER,
+   START;
 
    public static Action fromValue(String symbol) {
       return Action.valueOf(CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, symbol));
@@ -72,4 +72,12 @@ public interface BucketApi {
    @MapBinder(BindToJsonPayload.class)
    @PayloadParams(keys = {"accountId"}, values = {"{jclouds.identity}"})
    BucketList listBuckets();
+
+   /** List only the bucket with this name, which is cheaper than listing every bucket in large accounts. */
+   @Named("b2_list_buckets")
+   @POST
+   @Path("/b2api/v1/b2_list_buckets")
+   @MapBinder(BindToJsonPayload.class)
+   @PayloadParams(keys = {"accountId"}, values = {"{jclouds.identity}"})
+   BucketList listBuckets(@PayloadParam("bucketName") String bucketName);
 }
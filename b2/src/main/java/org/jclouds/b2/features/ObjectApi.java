@@ -24,6 +24,7 @@ import java.util.Map;
 import javax.inject.Named;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -121,6 +122,15 @@ public interface ObjectApi {
    @Fallback(NullOnNotFoundOr404.class)
    B2Object downloadFileByName(@PathParam("bucketName") String bucketName, @PathParam("fileName") String fileName, GetOptions options);
 
+   /** Retrieve the metadata of the latest version of a file without downloading its content. */
+   @Named("b2_download_file_by_name")
+   @HEAD
+   @Path("/file/{bucketName}/{fileName}")
+   @RequestFilters(RequestAuthorizationDownload.class)
+   @ResponseParser(ParseB2ObjectFromResponse.class)
+   @Fallback(NullOnNotFoundOr404.class)
+   B2Object getFileInfoByName(@PathParam("bucketName") String bucketName, @PathParam("fileName") String fileName);
+
    @Named("b2_list_file_names")
    @GET
    @Path("/b2api/v1/b2_list_file_names")
@@ -130,6 +140,19 @@ public interface ObjectApi {
    @Produces(APPLICATION_JSON)
    B2ObjectList listFileNames(@PayloadParam("bucketId") String bucketId, @PayloadParam("startFileName") @Nullable String startFileName, @PayloadParam("maxFileCount") @Nullable Integer maxFileCount);
 
+   /**
+    * List the latest version of files whose names start with prefix.  When delimiter is set, names containing the
+    * delimiter after the prefix are collapsed into a single entry with action {@code folder}.
+    */
+   @Named("b2_list_file_names")
+   @GET
+   @Path("/b2api/v1/b2_list_file_names")
+   @MapBinder(BindToJsonPayload.class)
+   @RequestFilters(RequestAuthorization.class)
+   @Consumes(APPLICATION_JSON)
+   @Produces(APPLICATION_JSON)
+   B2ObjectList listFileNames(@PayloadParam("bucketId") String bucketId, @PayloadParam("startFileName") @Nullable String startFileName, @PayloadParam("maxFileCount") @Nullable Integer maxFileCount, @PayloadParam("prefix") @Nullable String prefix, @PayloadParam("delimiter") @Nullable String delimiter);
+
    @Named("b2_list_file_versions")
    @GET
    @Path("/b2api/v1/b2_list_file_versions")
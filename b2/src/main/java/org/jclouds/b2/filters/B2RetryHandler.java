@@ -19,54 +19,34 @@ package org.jclouds.b2.filters;
 import static org.jclouds.http.HttpUtils.closeClientButKeepContentStream;
 import static org.jclouds.http.HttpUtils.releasePayload;
 
+import java.net.URI;
+
 import javax.annotation.Resource;
 import javax.inject.Inject;
 
-import org.jclouds.b2.B2Api;
 import org.jclouds.b2.domain.GetUploadPartResponse;
 import org.jclouds.b2.domain.UploadUrlResponse;
+import org.jclouds.b2.internal.UploadUrlPool;
 import org.jclouds.http.HttpCommand;
-import org.jclouds.http.HttpException;
 import org.jclouds.http.HttpRequest;
-import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.logging.Logger;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
 
 import com.google.common.net.HttpHeaders;
 import com.google.inject.Singleton;
 
 @Singleton
-public final class B2RetryHandler extends BackoffLimitedRetryHandler implements HttpRequestFilter {
-   private final B2Api api;
+public final class B2RetryHandler extends BackoffLimitedRetryHandler {
+   private final UploadUrlPool uploadUrlPool;
 
    @Resource
    private Logger logger = Logger.NULL;
 
    @Inject
-   B2RetryHandler(B2Api api) {
-      this.api = api;
-   }
-
-   @Override
-   public HttpRequest filter(HttpRequest request) throws HttpException {
-      HttpRequest.Builder<?> builder = request.toBuilder();
-
-      // B2 requires retrying on a different storage node for uploads
-      String path = request.getEndpoint().getPath();
-      if (path.startsWith("/b2api/v1/b2_upload_file")) {
-         String bucketId = path.split("/")[4];
-         UploadUrlResponse uploadUrl = api.getObjectApi().getUploadUrl(bucketId);
-         builder.endpoint(uploadUrl.uploadUrl())
-               .replaceHeader(HttpHeaders.AUTHORIZATION, uploadUrl.authorizationToken());
-      } else if (path.startsWith("/b2api/v1/b2_upload_part")) {
-         String fileId = path.split("/")[4];
-         GetUploadPartResponse uploadUrl = api.getMultipartApi().getUploadPartUrl(fileId);
-         builder.endpoint(uploadUrl.uploadUrl())
-               .replaceHeader(HttpHeaders.AUTHORIZATION, uploadUrl.authorizationToken());
-      }
-
-      return builder.build();
+   B2RetryHandler(UploadUrlPool uploadUrlPool) {
+      this.uploadUrlPool = uploadUrlPool;
    }
 
    @Override
@@ -75,6 +55,7 @@ public final class B2RetryHandler extends BackoffLimitedRetryHandler implements
       try {
          byte[] data = closeClientButKeepContentStream(response);
          switch (response.getStatusCode()) {
+         case 429:  // too_many_requests
          case 500:
          case 503:
             retry = super.shouldRetryRequest(command, response);
@@ -85,6 +66,53 @@ public final class B2RetryHandler extends BackoffLimitedRetryHandler implements
       } finally {
          releasePayload(response);
       }
+      if (retry) {
+         command.setCurrentRequest(withNewUploadUrl(command.getCurrentRequest()));
+      }
       return retry;
    }
+
+   /**
+    * B2 requires retrying uploads on a different storage node.  The failed URL must not be reused and its replacement
+    * is not returned to the pool since the caller only releases the URL it originally leased.  The bucket or large
+    * file id comes from the upload URL response the request was invoked with, since upload URLs do not reliably
+    * contain it.
+    */
+   private HttpRequest withNewUploadUrl(HttpRequest request) {
+      if (!(request instanceof GeneratedHttpRequest)) {
+         return request;
+      }
+      String bucketId = null;
+      String fileId = null;
+      for (Object arg : ((GeneratedHttpRequest) request).getInvocation().getArgs()) {
+         if (arg instanceof UploadUrlResponse) {
+            bucketId = ((UploadUrlResponse) arg).bucketId();
+         } else if (arg instanceof GetUploadPartResponse) {
+            fileId = ((GetUploadPartResponse) arg).fileId();
+         }
+      }
+      if (bucketId == null && fileId == null) {
+         return request;
+      }
+
+      String authorization = request.getFirstHeaderOrNull(HttpHeaders.AUTHORIZATION);
+      if (authorization != null) {
+         uploadUrlPool.discard(authorization);
+      }
+
+      URI endpoint;
+      if (bucketId != null) {
+         UploadUrlResponse uploadUrl = uploadUrlPool.acquireUploadUrl(bucketId);
+         endpoint = uploadUrl.uploadUrl();
+         authorization = uploadUrl.authorizationToken();
+      } else {
+         GetUploadPartResponse uploadUrl = uploadUrlPool.acquireUploadPartUrl(fileId);
+         endpoint = uploadUrl.uploadUrl();
+         authorization = uploadUrl.authorizationToken();
+      }
+      return request.toBuilder()
+            .endpoint(endpoint)
+            .replaceHeader(HttpHeaders.AUTHORIZATION, authorization)
+            .build();
+   }
 }
@@ -36,7 +36,18 @@ public final class ParseB2ObjectFromResponse implements Function<HttpResponse, B
    @Override
    public B2Object apply(HttpResponse from) {
       Payload payload = from.getPayload();
-      MutableContentMetadata contentMeta = payload.getContentMetadata();
+      Long contentLength;
+      String contentType;
+      if (payload != null) {
+         MutableContentMetadata contentMeta = payload.getContentMetadata();
+         contentLength = contentMeta.getContentLength();
+         contentType = contentMeta.getContentType();
+      } else {
+         // HEAD responses do not have a payload
+         String contentLengthHeader = from.getFirstHeaderOrNull(HttpHeaders.CONTENT_LENGTH);
+         contentLength = contentLengthHeader == null ? null : Long.valueOf(contentLengthHeader);
+         contentType = from.getFirstHeaderOrNull(HttpHeaders.CONTENT_TYPE);
+      }
 
       String fileId = from.getFirstHeaderOrNull(B2Headers.FILE_ID);
       String fileName;
@@ -61,6 +72,6 @@ public final class ParseB2ObjectFromResponse implements Function<HttpResponse, B
       Date uploadTimestamp = new Date(Long.parseLong(from.getFirstHeaderOrNull(B2Headers.UPLOAD_TIMESTAMP)));
       String contentRange = from.getFirstHeaderOrNull(HttpHeaders.CONTENT_RANGE);
 
-      return B2Object.create(fileId, fileName, null, null, contentMeta.getContentLength(), contentSha1, contentMeta.getContentType(), fileInfo.build(), null, uploadTimestamp.getTime(), contentRange, payload);
+      return B2Object.create(fileId, fileName, null, null, contentLength, contentSha1, contentType, fileInfo.build(), null, uploadTimestamp.getTime(), contentRange, payload);
    }
 }
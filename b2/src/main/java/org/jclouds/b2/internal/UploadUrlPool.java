@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.internal;
+
+import static org.jclouds.b2.reference.B2Constants.PROPERTY_UPLOAD_URL_POOL_SIZE;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.b2.B2Api;
+import org.jclouds.b2.domain.GetUploadPartResponse;
+import org.jclouds.b2.domain.UploadUrlResponse;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+
+/**
+ * Pools upload URLs so that consecutive uploads reuse them instead of calling b2_get_upload_url or
+ * b2_get_upload_part_url each time.  B2 allows only one upload at a time per URL so callers lease a URL, release it
+ * after a successful upload and discard it after a failure.
+ */
+@Singleton
+public final class UploadUrlPool {
+   private final B2Api api;
+   private final int poolSize;
+   private final ConcurrentMap<String, BlockingDeque<UploadUrlResponse>> uploadUrls = Maps.newConcurrentMap();
+   private final ConcurrentMap<String, BlockingDeque<GetUploadPartResponse>> uploadPartUrls = Maps.newConcurrentMap();
+   /** Authorization tokens which may still be used, expired tokens are dropped instead of being returned. */
+   private final Cache<String, Boolean> liveTokens;
+
+   @Inject
+   UploadUrlPool(B2Api api, @Named(PROPERTY_UPLOAD_URL_POOL_SIZE) int poolSize,
+         @Named(Constants.PROPERTY_SESSION_INTERVAL) long sessionInterval) {
+      this.api = api;
+      this.poolSize = poolSize;
+      this.liveTokens = CacheBuilder.newBuilder()
+            .expireAfterWrite(sessionInterval, TimeUnit.SECONDS)
+            .build();
+   }
+
+   public UploadUrlResponse acquireUploadUrl(String bucketId) {
+      BlockingDeque<UploadUrlResponse> pool = uploadUrls.get(bucketId);
+      if (pool != null) {
+         UploadUrlResponse uploadUrl;
+         while ((uploadUrl = pool.pollFirst()) != null) {
+            if (liveTokens.getIfPresent(uploadUrl.authorizationToken()) != null) {
+               return uploadUrl;
+            }
+         }
+      }
+      UploadUrlResponse uploadUrl = api.getObjectApi().getUploadUrl(bucketId);
+      liveTokens.put(uploadUrl.authorizationToken(), Boolean.TRUE);
+      return uploadUrl;
+   }
+
+   public void releaseUploadUrl(UploadUrlResponse uploadUrl) {
+      if (liveTokens.getIfPresent(uploadUrl.authorizationToken()) == null) {
+         return;
+      }
+      // offerFirst fails when the pool is full, which discards the URL
+      getPool(uploadUrls, uploadUrl.bucketId()).offerFirst(uploadUrl);
+   }
+
+   public GetUploadPartResponse acquireUploadPartUrl(String fileId) {
+      BlockingDeque<GetUploadPartResponse> pool = uploadPartUrls.get(fileId);
+      if (pool != null) {
+         GetUploadPartResponse uploadUrl;
+         while ((uploadUrl = pool.pollFirst()) != null) {
+            if (liveTokens.getIfPresent(uploadUrl.authorizationToken()) != null) {
+               return uploadUrl;
+            }
+         }
+      }
+      GetUploadPartResponse uploadUrl = api.getMultipartApi().getUploadPartUrl(fileId);
+      liveTokens.put(uploadUrl.authorizationToken(), Boolean.TRUE);
+      return uploadUrl;
+   }
+
+   public void releaseUploadPartUrl(GetUploadPartResponse uploadUrl) {
+      if (liveTokens.getIfPresent(uploadUrl.authorizationToken()) == null) {
+         return;
+      }
+      getPool(uploadPartUrls, uploadUrl.fileId()).offerFirst(uploadUrl);
+   }
+
+   /** Prevent any URL using this authorization token from being handed out again. */
+   public void discard(String authorizationToken) {
+      liveTokens.invalidate(authorizationToken);
+   }
+
+   /** Drop all pooled URLs for a bucket, e.g., after deleting it. */
+   public void discardUploadUrls(String bucketId) {
+      uploadUrls.remove(bucketId);
+   }
+
+   /** Drop all pooled URLs for a large file after it has been finished or cancelled. */
+   public void discardUploadPartUrls(String fileId) {
+      uploadPartUrls.remove(fileId);
+   }
+
+   private <T> BlockingDeque<T> getPool(ConcurrentMap<String, BlockingDeque<T>> pools, String key) {
+      BlockingDeque<T> pool = pools.get(key);
+      if (pool == null) {
+         BlockingDeque<T> newPool = new LinkedBlockingDeque<T>(poolSize);
+         pool = pools.putIfAbsent(key, newPool);
+         if (pool == null) {
+            pool = newPool;
+         }
+      }
+      return pool;
+   }
+}
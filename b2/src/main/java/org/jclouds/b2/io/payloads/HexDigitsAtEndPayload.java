@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.io.payloads;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jclouds.io.Payload;
+import org.jclouds.io.payloads.BasePayload;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+
+/**
+ * Streams a payload followed by the 40 hex digits of its SHA-1, as B2 expects when uploading with
+ * {@code X-Bz-Content-Sha1: hex_digits_at_end}.  This lets uploads hash the payload while sending it instead of reading
+ * it twice.
+ */
+public final class HexDigitsAtEndPayload extends BasePayload<Payload> {
+   public static final int SHA1_HEX_LENGTH = 40;
+
+   private volatile HashCode contentSha1;
+
+   public HexDigitsAtEndPayload(Payload delegate) {
+      super(delegate);
+      getContentMetadata().setContentType(delegate.getContentMetadata().getContentType());
+      Long contentLength = delegate.getContentMetadata().getContentLength();
+      if (contentLength != null) {
+         getContentMetadata().setContentLength(contentLength + SHA1_HEX_LENGTH);
+      }
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      return new HexDigitsAtEndInputStream(new HashingInputStream(Hashing.sha1(), content.openStream()));
+   }
+
+   @Override
+   public boolean isRepeatable() {
+      return content.isRepeatable();
+   }
+
+   @Override
+   public void release() {
+      content.release();
+   }
+
+   /** @return the SHA-1 of the delegate payload once it has been streamed, or null */
+   public HashCode getContentSha1() {
+      return contentSha1;
+   }
+
+   private final class HexDigitsAtEndInputStream extends FilterInputStream {
+      private final HashingInputStream hashingInput;
+      private byte[] hexDigits;
+      private int position;
+
+      HexDigitsAtEndInputStream(HashingInputStream in) {
+         super(in);
+         this.hashingInput = in;
+      }
+
+      @Override
+      public int read() throws IOException {
+         if (hexDigits == null) {
+            int b = in.read();
+            if (b != -1) {
+               return b;
+            }
+            finish();
+         }
+         return position < hexDigits.length ? hexDigits[position++] & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (len == 0) {
+            return 0;
+         }
+         if (hexDigits == null) {
+            int read = in.read(b, off, len);
+            if (read != -1) {
+               return read;
+            }
+            finish();
+         }
+         if (position == hexDigits.length) {
+            return -1;
+         }
+         int read = Math.min(len, hexDigits.length - position);
+         System.arraycopy(hexDigits, position, b, off, read);
+         position += read;
+         return read;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+         // skipping would bypass the hash
+         byte[] buffer = new byte[(int) Math.min(n, 8192)];
+         int read = read(buffer, 0, buffer.length);
+         return read == -1 ? 0 : read;
+      }
+
+      @Override
+      public int available() throws IOException {
+         return hexDigits == null ? in.available() : hexDigits.length - position;
+      }
+
+      @Override
+      public boolean markSupported() {
+         return false;
+      }
+
+      @Override
+      public synchronized void mark(int readlimit) {
+      }
+
+      @Override
+      public synchronized void reset() throws IOException {
+         throw new IOException("mark/reset not supported");
+      }
+
+      private void finish() {
+         HashCode hash = hashingInput.hash();
+         contentSha1 = hash;
+         hexDigits = hash.toString().getBytes(Charsets.US_ASCII);
+      }
+   }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.reference;
+
+/** Configuration properties used by the B2 provider. */
+public final class B2Constants {
+   /**
+    * Maximum number of idle upload URLs retained per bucket and per large file.  B2 allows one concurrent upload per
+    * URL so this should roughly match the number of uploader threads.
+    */
+   public static final String PROPERTY_UPLOAD_URL_POOL_SIZE = "jclouds.b2.upload-url-pool-size";
+
+   /**
+    * Maximum number of parts a multipart putBlob buffers and uploads concurrently.  Memory usage is bounded by this
+    * value times the part size.
+    */
+   public static final String PROPERTY_MAX_IN_FLIGHT_PARTS = "jclouds.b2.multipart.max-in-flight-parts";
+
+   /**
+    * Seconds to cache file metadata by file name, avoiding b2_get_file_info calls in blobMetadata.  Writes by other
+    * clients may not be visible to blobMetadata for this long.  putBlob and removeBlob always look up the current
+    * version instead of using the cache.  Set to 0 to disable the cache.
+    */
+   public static final String PROPERTY_FILE_CACHE_TTL = "jclouds.b2.file-cache.ttl";
+
+   /** Maximum number of file names whose id and metadata are cached. */
+   public static final String PROPERTY_FILE_CACHE_SIZE = "jclouds.b2.file-cache.size";
+
+   /**
+    * Whether putBlob deletes the version it replaced in the background instead of before returning.  Readers never see
+    * the old version either way but it may briefly remain in version listings.
+    */
+   public static final String PROPERTY_VERSION_REAPER_ENABLED = "jclouds.b2.version-reaper.enabled";
+
+   /** Maximum number of superseded versions waiting to be deleted before putBlob deletes them itself. */
+   public static final String PROPERTY_VERSION_REAPER_QUEUE_SIZE = "jclouds.b2.version-reaper.queue-size";
+
+   /** Maximum number of user executor tasks deleting superseded versions concurrently. */
+   public static final String PROPERTY_VERSION_REAPER_THREADS = "jclouds.b2.version-reaper.threads";
+
+   /** Size in bytes of each range fetched by parallel downloads. */
+   public static final String PROPERTY_DOWNLOAD_RANGE_SIZE = "jclouds.b2.download.range-size";
+
+   /** Maximum number of ranges a parallel download fetches concurrently. */
+   public static final String PROPERTY_MAX_IN_FLIGHT_RANGES = "jclouds.b2.download.max-in-flight-ranges";
+
+   /** Maximum number of file versions clearContainer and deleteContainer delete concurrently. */
+   public static final String PROPERTY_MAX_IN_FLIGHT_DELETES = "jclouds.b2.bulk-delete.max-in-flight";
+
+   private B2Constants() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -30,6 +30,12 @@ public final class B2Headers {
 
    public static final String FILE_INFO_PREFIX = "X-Bz-Info-";
 
+   /**
+    * Value for {@link #CONTENT_SHA1} indicating that the 40 hex digits of the SHA-1 follow the content in the request
+    * body.  This allows uploads to hash the content while sending it.
+    */
+   public static final String HEX_DIGITS_AT_END = "hex_digits_at_end";
+
    private B2Headers() {
       throw new AssertionError("intentionally unimplemented");
    }
@@ -0,0 +1,456 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.jclouds.b2.features.B2TestUtils.assertAuthentication;
+import static org.jclouds.b2.features.B2TestUtils.assertRequest;
+import static org.jclouds.b2.features.B2TestUtils.blobStoreContext;
+import static org.jclouds.b2.features.B2TestUtils.createMockWebServer;
+import static org.jclouds.b2.features.B2TestUtils.stringFromResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.jclouds.b2.reference.B2Constants;
+import org.jclouds.b2.reference.B2Headers;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.io.Payloads;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.net.HttpHeaders;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "B2BlobStoreMockTest")
+public final class B2BlobStoreMockTest {
+   private static final String BUCKET_NAME = "BUCKET_NAME";
+   private static final String BUCKET_ID = "4a48fe8875c6214145260818";
+   private static final String FILE_NAME = "typing_test.txt";
+   private static final String FILE_ID = "4_h4a48fe8875c6214145260818_f000000000000472a_d20140104_m032022_c001_v0000123_t0104";
+   private static final String NEWER_FILE_ID = "4_h4a48fe8875c6214145260818_f000000000000472b_d20140105_m032022_c001_v0000123_t0104";
+   private static final String LARGE_FILE_ID = "4_za71f544e781e6891531b001a_f200ec353a2184825_d20160409_m004829_c000_v0001016_t0028";
+   private static final String SHA1 = "bae5ed658ab3546aee12f23f36392f35dba1ebdd";
+   private static final String PAYLOAD = "The quick brown fox jumped over the lazy dog.\n";
+
+   public void testBlobMetadataIsCached() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(fileInfoResponse(FILE_ID));
+
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), new Properties());
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         assertThat(blobStore.blobMetadata(BUCKET_NAME, FILE_NAME).getETag()).isEqualTo(SHA1);
+         assertThat(blobStore.blobMetadata(BUCKET_NAME, FILE_NAME).getETag()).isEqualTo(SHA1);
+
+         assertThat(server.getRequestCount()).isEqualTo(3);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "HEAD", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testBlobMetadataCacheDisabled() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(fileInfoResponse(FILE_ID));
+      server.enqueue(fileInfoResponse(NEWER_FILE_ID));
+
+      Properties overrides = new Properties();
+      overrides.setProperty(B2Constants.PROPERTY_FILE_CACHE_TTL, "0");
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), overrides);
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         blobStore.blobMetadata(BUCKET_NAME, FILE_NAME);
+         blobStore.blobMetadata(BUCKET_NAME, FILE_NAME);
+
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "HEAD", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+         assertRequest(server.takeRequest(), "HEAD", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testRemoveBlobDeletesCurrentVersionAndInvalidatesCache() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(fileInfoResponse(FILE_ID));
+      // another client uploaded a newer version after the metadata was cached
+      server.enqueue(listFileNamesResponse(NEWER_FILE_ID));
+      server.enqueue(new MockResponse().setBody(
+            "{\"fileId\": \"" + NEWER_FILE_ID + "\", \"fileName\": \"" + FILE_NAME + "\"}"));
+      server.enqueue(new MockResponse().setResponseCode(404));
+
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), new Properties());
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         assertThat(blobStore.blobMetadata(BUCKET_NAME, FILE_NAME)).isNotNull();
+         blobStore.removeBlob(BUCKET_NAME, FILE_NAME);
+         BlobMetadata metadata = blobStore.blobMetadata(BUCKET_NAME, FILE_NAME);
+         assertThat(metadata).isNull();
+
+         assertThat(server.getRequestCount()).isEqualTo(6);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "HEAD", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+         assertRequest(server.takeRequest(), "GET", "/b2api/v1/b2_list_file_names");
+         RecordedRequest delete = server.takeRequest();
+         assertRequest(delete, "POST", "/b2api/v1/b2_delete_file_version");
+         assertThat(new String(delete.getBody(), Charsets.UTF_8)).contains(NEWER_FILE_ID);
+         assertRequest(server.takeRequest(), "HEAD", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testDeleteContainerListsVersionsOnce() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(new MockResponse().setBody("{\"files\": [], \"nextFileId\": null, \"nextFileName\": null}"));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/bucket.json")));
+
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), new Properties());
+      try {
+         context.getBlobStore().deleteContainer(BUCKET_NAME);
+
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_file_versions");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_delete_bucket");
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testDownloadBlobInRanges() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(fileInfoResponse(FILE_ID));
+      server.enqueue(rangeResponse(FILE_ID, 0, 19));
+      server.enqueue(rangeResponse(FILE_ID, 20, 39));
+      server.enqueue(rangeResponse(FILE_ID, 40, PAYLOAD.length() - 1));
+
+      Properties overrides = new Properties();
+      overrides.setProperty(B2Constants.PROPERTY_DOWNLOAD_RANGE_SIZE, "20");
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), overrides);
+      File destination = File.createTempFile("b2", null);
+      try {
+         B2BlobStore blobStore = (B2BlobStore) context.getBlobStore();
+         blobStore.downloadBlob(BUCKET_NAME, FILE_NAME, destination);
+
+         assertThat(Files.toString(destination, Charsets.UTF_8)).isEqualTo(PAYLOAD);
+         assertThat(server.getRequestCount()).isEqualTo(6);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "HEAD", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+         assertRange(server.takeRequest(), "bytes=0-19");
+         assertRange(server.takeRequest(), "bytes=20-39");
+         assertRange(server.takeRequest(), "bytes=40-" + (PAYLOAD.length() - 1));
+      } finally {
+         destination.delete();
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testDownloadBlobWithoutContentLength() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(fileInfoResponse(FILE_ID).removeHeader(HttpHeaders.CONTENT_LENGTH));
+      server.enqueue(new MockResponse()
+            .addHeader(B2Headers.FILE_ID, FILE_ID)
+            .addHeader(B2Headers.FILE_NAME, FILE_NAME)
+            .addHeader(B2Headers.CONTENT_SHA1, SHA1)
+            .addHeader(B2Headers.UPLOAD_TIMESTAMP, String.valueOf(1500000000000L))
+            .setBody(PAYLOAD));
+
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), new Properties());
+      File destination = File.createTempFile("b2", null);
+      try {
+         B2BlobStore blobStore = (B2BlobStore) context.getBlobStore();
+         blobStore.downloadBlob(BUCKET_NAME, FILE_NAME, destination);
+
+         assertThat(Files.toString(destination, Charsets.UTF_8)).isEqualTo(PAYLOAD);
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "HEAD", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+         RecordedRequest download = server.takeRequest();
+         assertRequest(download, "GET", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+         assertThat(download.getHeader(HttpHeaders.RANGE)).isNull();
+      } finally {
+         destination.delete();
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testFailedRangeStopsDownload() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(fileInfoResponse(FILE_ID));
+      server.enqueue(rangeResponse(FILE_ID, 0, 19));
+      // the file was replaced between the first and second ranges
+      server.enqueue(rangeResponse(NEWER_FILE_ID, 20, 39));
+      server.enqueue(rangeResponse(NEWER_FILE_ID, 40, PAYLOAD.length() - 1));
+
+      Properties overrides = new Properties();
+      overrides.setProperty(B2Constants.PROPERTY_DOWNLOAD_RANGE_SIZE, "20");
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), overrides);
+      File destination = File.createTempFile("b2", null);
+      try {
+         B2BlobStore blobStore = (B2BlobStore) context.getBlobStore();
+         try {
+            blobStore.downloadBlob(BUCKET_NAME, FILE_NAME, destination);
+            failBecauseExceptionWasNotThrown(RuntimeException.class);
+         } catch (RuntimeException expected) {
+            assertThat(Throwables.getRootCause(expected)).isInstanceOf(IOException.class);
+         }
+
+         assertThat(destination).doesNotExist();
+         // the last range is never requested
+         assertThat(server.getRequestCount()).isEqualTo(5);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "HEAD", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+         assertRange(server.takeRequest(), "bytes=0-19");
+         assertRange(server.takeRequest(), "bytes=20-39");
+      } finally {
+         destination.delete();
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testPutSmallMultipartBlobStreamsSinglePart() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(authorizeResponse(10));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(uploadUrlResponse(server));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/upload_file_response.json")));
+
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), new Properties());
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         Blob blob = blobStore.blobBuilder(FILE_NAME).payload("abcd").build();
+         blobStore.putBlob(BUCKET_NAME, blob, PutOptions.Builder.multipart());
+
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_get_upload_url");
+         RecordedRequest upload = server.takeRequest();
+         assertRequest(upload, "POST", "/b2api/v1/b2_upload_file/" + BUCKET_ID);
+         assertThat(upload.getHeader(B2Headers.CONTENT_SHA1)).isEqualTo(B2Headers.HEX_DIGITS_AT_END);
+         assertThat(upload.getBody()).hasSize(4 + 40);
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testPutMultipartBlobOfExactlyOnePart() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(authorizeResponse(10));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(uploadUrlResponse(server));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/upload_file_response.json")));
+
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), new Properties());
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         byte[] content = "0123456789".getBytes(Charsets.UTF_8);
+         // the length is unknown so the uploader has to read past the first part to find the end
+         Blob blob = blobStore.blobBuilder(FILE_NAME)
+               .payload(Payloads.newInputStreamPayload(new ByteArrayInputStream(content)))
+               .build();
+         blobStore.putBlob(BUCKET_NAME, blob, PutOptions.Builder.multipart());
+
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_get_upload_url");
+         RecordedRequest upload = server.takeRequest();
+         assertRequest(upload, "POST", "/b2api/v1/b2_upload_file/" + BUCKET_ID);
+         assertThat(upload.getHeader(B2Headers.CONTENT_SHA1)).isEqualTo(Hashing.sha1().hashBytes(content).toString());
+         assertThat(upload.getBody()).isEqualTo(content);
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testPutMultipartBlobInParts() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(authorizeResponse(10));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(new MockResponse().setBody(stringFromResource("/start_large_file_response.json")));
+      server.enqueue(uploadPartUrlResponse(server));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/upload_part_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/upload_part_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/upload_part_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/finish_large_file_response.json")));
+
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), new Properties());
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         byte[] content = "0123456789abcdefghijABCDE".getBytes(Charsets.UTF_8);
+         Blob blob = blobStore.blobBuilder(FILE_NAME).payload(content).build();
+         blobStore.putBlob(BUCKET_NAME, blob, PutOptions.Builder.multipart());
+
+         assertThat(server.getRequestCount()).isEqualTo(8);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_start_large_file");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_get_upload_part_url");
+         for (int part = 1; part <= 3; ++part) {
+            RecordedRequest upload = server.takeRequest();
+            assertRequest(upload, "POST", "/b2api/v1/b2_upload_part/" + LARGE_FILE_ID + "/0037");
+            byte[] expected = Arrays.copyOfRange(content, (part - 1) * 10, Math.min(part * 10, content.length));
+            assertThat(upload.getHeader("X-Bz-Part-Number")).isEqualTo(String.valueOf(part));
+            assertThat(upload.getHeader(B2Headers.CONTENT_SHA1)).isEqualTo(Hashing.sha1().hashBytes(expected).toString());
+            assertThat(upload.getBody()).isEqualTo(expected);
+         }
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_finish_large_file");
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testFailedPartCancelsLargeFile() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(authorizeResponse(10));
+      server.enqueue(listBucketsResponse());
+      server.enqueue(new MockResponse().setBody(stringFromResource("/start_large_file_response.json")));
+      server.enqueue(uploadPartUrlResponse(server));
+      server.enqueue(new MockResponse().setResponseCode(400)
+            .setBody("{\"status\": 400, \"code\": \"bad_request\", \"message\": \"part rejected\"}"));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/cancel_large_file_response.json")));
+
+      BlobStoreContext context = blobStoreContext(server.getUrl("/").toString(), new Properties());
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         Blob blob = blobStore.blobBuilder(FILE_NAME).payload("0123456789abcdefghijABCDE").build();
+         try {
+            blobStore.putBlob(BUCKET_NAME, blob, PutOptions.Builder.multipart());
+            failBecauseExceptionWasNotThrown(RuntimeException.class);
+         } catch (RuntimeException expected) {
+            // the part was rejected
+         }
+
+         assertThat(server.getRequestCount()).isEqualTo(6);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_start_large_file");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_get_upload_part_url");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_upload_part/" + LARGE_FILE_ID + "/0037");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_cancel_large_file");
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   private static MockResponse authorizeResponse(long minimumPartSize) {
+      return new MockResponse().setBody("{\"accountId\": \"YOUR_ACCOUNT_ID\", \"apiUrl\": \"http://localhost\", "
+            + "\"authorizationToken\": \"ACCOUNT_TOKEN\", \"downloadUrl\": \"http://localhost\", "
+            + "\"minimumPartSize\": " + minimumPartSize + "}");
+   }
+
+   private static MockResponse uploadUrlResponse(MockWebServer server) {
+      return new MockResponse().setBody("{\"bucketId\": \"" + BUCKET_ID + "\", "
+            + "\"uploadUrl\": \"" + server.getUrl("/b2api/v1/b2_upload_file/" + BUCKET_ID) + "\", "
+            + "\"authorizationToken\": \"UPLOAD_TOKEN\"}");
+   }
+
+   private static MockResponse uploadPartUrlResponse(MockWebServer server) {
+      return new MockResponse().setBody("{\"fileId\": \"" + LARGE_FILE_ID + "\", "
+            + "\"uploadUrl\": \"" + server.getUrl("/b2api/v1/b2_upload_part/" + LARGE_FILE_ID + "/0037") + "\", "
+            + "\"authorizationToken\": \"UPLOAD_PART_TOKEN\"}");
+   }
+
+   private static MockResponse listBucketsResponse() {
+      return new MockResponse().setBody("{\"buckets\": [{\"bucketId\": \"" + BUCKET_ID + "\", "
+            + "\"accountId\": \"30f20426f0b1\", \"bucketName\": \"" + BUCKET_NAME + "\", "
+            + "\"bucketType\": \"allPrivate\"}]}");
+   }
+
+   private static MockResponse listFileNamesResponse(String fileId) {
+      return new MockResponse().setBody("{\"files\": [{\"action\": \"upload\", \"fileId\": \"" + fileId + "\", "
+            + "\"fileName\": \"" + FILE_NAME + "\", \"size\": " + PAYLOAD.length() + ", "
+            + "\"uploadTimestamp\": 1439083733000, \"contentSha1\": \"" + SHA1 + "\", "
+            + "\"contentType\": \"text/plain\", \"fileInfo\": {}}], \"nextFileName\": null}");
+   }
+
+   private static void assertRange(RecordedRequest request, String range) {
+      assertRequest(request, "GET", "/file/" + BUCKET_NAME + "/" + FILE_NAME);
+      assertThat(request.getHeader(HttpHeaders.RANGE)).isEqualTo(range);
+   }
+
+   private static MockResponse rangeResponse(String fileId, int start, int end) {
+      return new MockResponse()
+            .setResponseCode(206)
+            .addHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + PAYLOAD.length())
+            .addHeader(B2Headers.FILE_ID, fileId)
+            .addHeader(B2Headers.FILE_NAME, FILE_NAME)
+            .addHeader(B2Headers.CONTENT_SHA1, SHA1)
+            .addHeader(B2Headers.UPLOAD_TIMESTAMP, String.valueOf(1500000000000L))
+            .setBody(PAYLOAD.substring(start, end + 1));
+   }
+
+   private static MockResponse fileInfoResponse(String fileId) {
+      return new MockResponse()
+            .addHeader(HttpHeaders.CONTENT_TYPE, "text/plain")
+            .setHeader(HttpHeaders.CONTENT_LENGTH, PAYLOAD.length())
+            .addHeader(B2Headers.FILE_ID, fileId)
+            .addHeader(B2Headers.FILE_NAME, FILE_NAME)
+            .addHeader(B2Headers.CONTENT_SHA1, SHA1)
+            .addHeader(B2Headers.UPLOAD_TIMESTAMP, String.valueOf(1500000000000L));
+   }
+}
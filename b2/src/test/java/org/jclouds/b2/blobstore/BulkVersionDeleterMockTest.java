@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.jclouds.b2.features.B2TestUtils.api;
+import static org.jclouds.b2.features.B2TestUtils.assertAuthentication;
+import static org.jclouds.b2.features.B2TestUtils.assertRequest;
+import static org.jclouds.b2.features.B2TestUtils.createMockWebServer;
+import static org.jclouds.b2.features.B2TestUtils.stringFromResource;
+
+import org.jclouds.b2.B2Api;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "BulkVersionDeleterMockTest")
+public final class BulkVersionDeleterMockTest {
+   private static final String BUCKET_ID = "4a48fe8875c6214145260818";
+
+   public void testDeletesEveryVersionOnEveryPage() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/list_file_versions_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/delete_object_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/delete_object_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/delete_object_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/list_file_versions_unfinished_large_file_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/cancel_large_file_response.json")));
+
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         new BulkVersionDeleter(api, MoreExecutors.sameThreadExecutor(), 2).deleteAllVersions(BUCKET_ID);
+
+         assertThat(server.getRequestCount()).isEqualTo(7);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_file_versions");
+         assertDeleted(server.takeRequest(), "files/hello.txt",
+               "4_z27c88f1d182b150646ff0b16_f100920ddab886245_d20150809_m232316_c100_v0009990_t0003");
+         // hide markers are deleted like any other version
+         assertDeleted(server.takeRequest(), "files/world.txt",
+               "4_z27c88f1d182b150646ff0b16_f100920ddab886247_d20150809_m232323_c100_v0009990_t0005");
+         assertDeleted(server.takeRequest(), "files/world.txt",
+               "4_z27c88f1d182b150646ff0b16_f100920ddab886246_d20150809_m232316_c100_v0009990_t0003");
+         RecordedRequest list = server.takeRequest();
+         assertRequest(list, "POST", "/b2api/v1/b2_list_file_versions");
+         assertThat(new String(list.getBody(), Charsets.UTF_8))
+               .contains("4_z27c88f1d182b150646ff0b16_f100920ddab886247_d20150809_m232316_c100_v0009990_t0003")
+               .contains("files/world.txt");
+         RecordedRequest cancel = server.takeRequest();
+         assertRequest(cancel, "POST", "/b2api/v1/b2_cancel_large_file");
+         assertThat(new String(cancel.getBody(), Charsets.UTF_8))
+               .contains("4_z27c88f1d182b150646ff0b16_f200ec353a2184825_d20160409_m004829_c000_v0001016_t0028");
+      } finally {
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   public void testFailedDeleteStopsListingAndDeleting() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/list_file_versions_response.json")));
+      server.enqueue(new MockResponse().setResponseCode(400)
+            .setBody("{\"status\": 400, \"code\": \"bad_request\", \"message\": \"delete rejected\"}"));
+
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         try {
+            new BulkVersionDeleter(api, MoreExecutors.sameThreadExecutor(), 1).deleteAllVersions(BUCKET_ID);
+            failBecauseExceptionWasNotThrown(RuntimeException.class);
+         } catch (RuntimeException expected) {
+            // the first delete was rejected
+         }
+
+         // neither the remaining versions nor the next page are requested
+         assertThat(server.getRequestCount()).isEqualTo(3);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_file_versions");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_delete_file_version");
+      } finally {
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   private static void assertDeleted(RecordedRequest request, String fileName, String fileId) {
+      assertRequest(request, "POST", "/b2api/v1/b2_delete_file_version");
+      assertThat(new String(request.getBody(), Charsets.UTF_8)).contains(fileName).contains(fileId);
+   }
+}
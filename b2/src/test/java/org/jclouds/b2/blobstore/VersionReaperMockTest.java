@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.jclouds.b2.features.B2TestUtils.api;
+import static org.jclouds.b2.features.B2TestUtils.assertAuthentication;
+import static org.jclouds.b2.features.B2TestUtils.assertRequest;
+import static org.jclouds.b2.features.B2TestUtils.createMockWebServer;
+import static org.jclouds.b2.features.B2TestUtils.stringFromResource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jclouds.b2.B2Api;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "VersionReaperMockTest", singleThreaded = true)
+public final class VersionReaperMockTest {
+   private static final String FILE_ID = "4_h4a48fe8875c6214145260818_f000000000000472a_d20140104_m032022_c001_v0000123_t0104";
+   private static final String FILE_NAME = "typing_test.txt";
+
+   public void testEnabledReaperDeletesInBackground() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/delete_object_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/delete_object_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/delete_object_response.json")));
+
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         VersionReaper reaper = new VersionReaper(api, executor, true, 10, 2);
+         reaper.delete(FILE_NAME, FILE_ID);
+         reaper.delete(FILE_NAME, FILE_ID);
+         reaper.delete(FILE_NAME, FILE_ID);
+         reaper.flush();
+
+         assertThat(reaper.getDeletedCount()).isEqualTo(3);
+         assertThat(reaper.getFailedCount()).isEqualTo(0);
+         assertThat(reaper.getQueueDepth()).isEqualTo(0);
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_delete_file_version");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_delete_file_version");
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_delete_file_version");
+      } finally {
+         executor.shutdownNow();
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   public void testFlushWaitsForInFlightDeletes() throws Exception {
+      final CountDownLatch deleting = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      MockWebServer server = createMockWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            if (request.getPath().startsWith("/b2api/v1/b2_authorize_account")) {
+               return new MockResponse().setBody(stringFromResource("/authorize_account_response.json"));
+            }
+            deleting.countDown();
+            release.await();
+            return new MockResponse().setBody(stringFromResource("/delete_object_response.json"));
+         }
+      });
+
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         final VersionReaper reaper = new VersionReaper(api, executor, true, 10, 1);
+         reaper.delete(FILE_NAME, FILE_ID);
+         assertThat(deleting.await(10, TimeUnit.SECONDS)).isTrue();
+
+         // the only queued version has been taken by a worker so flush must wait for it
+         Future<?> flush = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+               reaper.flush();
+            }
+         });
+         try {
+            flush.get(500, TimeUnit.MILLISECONDS);
+            failBecauseExceptionWasNotThrown(TimeoutException.class);
+         } catch (TimeoutException expected) {
+            assertThat(reaper.getDeletedCount()).isEqualTo(0);
+         }
+
+         release.countDown();
+         flush.get(10, TimeUnit.SECONDS);
+         assertThat(reaper.getDeletedCount()).isEqualTo(1);
+         assertThat(server.getRequestCount()).isEqualTo(2);
+      } finally {
+         release.countDown();
+         executor.shutdownNow();
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   public void testDeletesAfterCloseHappenOnCallingThread() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/delete_object_response.json")));
+
+      // any task submitted after close would be rejected
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(1));
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         VersionReaper reaper = new VersionReaper(api, executor, true, 10, 1);
+         reaper.close();
+         executor.shutdown();
+         reaper.delete(FILE_NAME, FILE_ID);
+
+         assertThat(reaper.getDeletedCount()).isEqualTo(1);
+         assertThat(server.getRequestCount()).isEqualTo(2);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_delete_file_version");
+      } finally {
+         executor.shutdownNow();
+         api.close();
+         server.shutdown();
+      }
+   }
+}
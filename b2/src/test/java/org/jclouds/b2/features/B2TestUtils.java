@@ -26,6 +26,7 @@ import java.util.Properties;
 import org.jclouds.ContextBuilder;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
 import org.jclouds.b2.B2Api;
+import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.util.Strings2;
 
 import com.google.common.base.Charsets;
@@ -38,8 +39,8 @@ import com.google.inject.Module;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
 
-final class B2TestUtils {
-   static B2Api api(String uri, String provider, Properties overrides) {
+public final class B2TestUtils {
+   public static B2Api api(String uri, String provider, Properties overrides) {
        Set<Module> modules = ImmutableSet.<Module> of(
              new ExecutorServiceModule(MoreExecutors.sameThreadExecutor()));
 
@@ -51,18 +52,30 @@ final class B2TestUtils {
             .buildApi(B2Api.class);
    }
 
-   static B2Api api(String uri, String provider) {
+   public static B2Api api(String uri, String provider) {
       return api(uri, provider, new Properties());
    }
 
-   static MockWebServer createMockWebServer() throws IOException {
+   public static BlobStoreContext blobStoreContext(String uri, Properties overrides) {
+      Set<Module> modules = ImmutableSet.<Module> of(
+            new ExecutorServiceModule(MoreExecutors.sameThreadExecutor()));
+
+      return ContextBuilder.newBuilder("b2")
+            .credentials("ACCOUNT_ID", "APPLICATION_KEY")
+            .endpoint(uri)
+            .overrides(overrides)
+            .modules(modules)
+            .buildView(BlobStoreContext.class);
+   }
+
+   public static MockWebServer createMockWebServer() throws IOException {
       MockWebServer server = new MockWebServer();
       server.play();
       URL url = server.getUrl("");
       return server;
    }
 
-   static void assertAuthentication(MockWebServer server) {
+   public static void assertAuthentication(MockWebServer server) {
       assertThat(server.getRequestCount()).isGreaterThanOrEqualTo(1);
       try {
          assertThat(server.takeRequest().getRequestLine()).isEqualTo("GET /b2api/v1/b2_authorize_account HTTP/1.1");
@@ -81,7 +94,7 @@ final class B2TestUtils {
     *           The path requested for this REST call.
     * @see RecordedRequest
     */
-   static void assertRequest(RecordedRequest request, String method, String path) {
+   public static void assertRequest(RecordedRequest request, String method, String path) {
       assertThat(request.getMethod()).isEqualTo(method);
       assertThat(request.getPath()).isEqualTo(path);
    }
@@ -98,7 +111,7 @@ final class B2TestUtils {
     *           the request body as JSON.
     * @see RecordedRequest
     */
-   static void assertRequest(RecordedRequest request, String method, String path, String resourceLocation) {
+   public static void assertRequest(RecordedRequest request, String method, String path, String resourceLocation) {
       assertRequest(request, method, path);
       assertContentTypeIsJson(request);
       JsonParser parser = new JsonParser();
@@ -129,7 +142,7 @@ final class B2TestUtils {
     *           The name of the resource.
     * @return The content of the resource
     */
-   static String stringFromResource(String resourceName) {
+   public static String stringFromResource(String resourceName) {
       try {
          return Strings2.toStringAndClose(BucketApiMockTest.class.getResourceAsStream(resourceName));
       } catch (IOException e) {
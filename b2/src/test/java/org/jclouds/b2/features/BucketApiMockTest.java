@@ -138,4 +138,25 @@ public final class BucketApiMockTest {
          server.shutdown();
       }
    }
+
+   public void testListBucketsByName() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/list_buckets_by_name_response.json")));
+
+      try {
+         BucketApi api = api(server.getUrl("/").toString(), "b2").getBucketApi();
+         BucketList response = api.listBuckets("Kitten Videos");
+
+         assertThat(response.buckets()).hasSize(1);
+         assertThat(response.buckets().get(0).bucketName()).isEqualTo("Kitten Videos");
+         assertThat(response.buckets().get(0).bucketType()).isEqualTo(BucketType.ALL_PRIVATE);
+
+         assertThat(server.getRequestCount()).isEqualTo(2);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_buckets", "/list_buckets_by_name_request.json");
+      } finally {
+         server.shutdown();
+      }
+   }
 }
@@ -42,8 +42,10 @@ import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.net.HttpHeaders;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
 
 @Test(groups = "unit", testName = "MultipartApiMockTest")
 public final class MultipartApiMockTest {
@@ -176,6 +178,41 @@ public final class MultipartApiMockTest {
       }
    }
 
+   public void testUploadPartRetriesOnANewUploadUrl() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setResponseCode(503)
+            .setBody("{\"status\": 503, \"code\": \"service_unavailable\", \"message\": \"no tomes available\"}"));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody("{\"fileId\": \"" + FILE_ID + "\", \"uploadUrl\": \""
+            + server.getUrl("/b2api/v1/b2_upload_part/4a48fe8875c6214145260818/c001_v0001007_t0043")
+            + "\", \"authorizationToken\": \"NEW-AUTHORIZATION-TOKEN\"}"));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/upload_part_response.json")));
+
+      try {
+         MultipartApi api = api(server.getUrl("/").toString(), "b2").getMultipartApi();
+         // the upload URL does not contain the large file id, the retry must take it from the response
+         GetUploadPartResponse uploadPart = GetUploadPartResponse.create(FILE_ID, server.getUrl("/b2api/v1/b2_upload_part/4a48fe8875c6214145260818/c001_v0001007_t0042").toURI(), AUTHORIZATION_TOKEN);
+         long contentLength = 1000;
+         Payload payload = Payloads.newByteSourcePayload(TestUtils.randomByteSource().slice(0, contentLength));
+         payload.getContentMetadata().setContentLength(contentLength);
+         UploadPartResponse response = api.uploadPart(uploadPart, 1, SHA1, payload);
+         assertThat(response.fileId()).isEqualTo(FILE_ID);
+
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         RecordedRequest failed = server.takeRequest();
+         assertRequest(failed, "POST", "/b2api/v1/b2_upload_part/4a48fe8875c6214145260818/c001_v0001007_t0042");
+         assertThat(failed.getHeader(HttpHeaders.AUTHORIZATION)).isEqualTo(AUTHORIZATION_TOKEN);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_get_upload_part_url", "/get_upload_part_url_request.json");
+         RecordedRequest retried = server.takeRequest();
+         assertRequest(retried, "POST", "/b2api/v1/b2_upload_part/4a48fe8875c6214145260818/c001_v0001007_t0043");
+         assertThat(retried.getHeader(HttpHeaders.AUTHORIZATION)).isEqualTo("NEW-AUTHORIZATION-TOKEN");
+         assertThat(retried.getHeader("X-Bz-Part-Number")).isEqualTo("1");
+      } finally {
+         server.shutdown();
+      }
+   }
+
    public void testListParts() throws Exception {
       MockWebServer server = createMockWebServer();
       server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
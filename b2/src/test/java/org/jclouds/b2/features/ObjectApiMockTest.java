@@ -43,6 +43,7 @@ import org.jclouds.b2.domain.UploadUrlResponse;
 import org.jclouds.b2.reference.B2Headers;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.net.HttpHeaders;
 import com.squareup.okhttp.mockwebserver.MockResponse;
@@ -131,6 +132,66 @@ public final class ObjectApiMockTest {
       }
    }
 
+   public void testUploadFileRetriesOnANewUploadUrl() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setResponseCode(503)
+            .setBody("{\"status\": 503, \"code\": \"service_unavailable\", \"message\": \"no tomes available\"}"));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody("{\"bucketId\": \"" + BUCKET_ID + "\", \"uploadUrl\": \""
+            + server.getUrl("/b2api/v1/b2_upload_file?cvt=c001_v0001007_t0043&bucket=" + BUCKET_ID)
+            + "\", \"authorizationToken\": \"NEW-AUTHORIZATION-TOKEN\"}"));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/upload_file_response.json")));
+
+      try {
+         ObjectApi api = api(server.getUrl("/").toString(), "b2").getObjectApi();
+
+         // b2_get_upload_url returns URLs which carry the bucket id as a query parameter
+         UploadUrlResponse uploadUrl = UploadUrlResponse.create(BUCKET_ID, server.getUrl("/b2api/v1/b2_upload_file?cvt=c001_v0001007_t0042&bucket=" + BUCKET_ID).toURI(), "FAKE-AUTHORIZATION-TOKEN");
+         Payload payload = Payloads.newStringPayload(PAYLOAD);
+         payload.getContentMetadata().setContentType(CONTENT_TYPE);
+         UploadFileResponse response = api.uploadFile(uploadUrl, FILE_NAME, SHA1, FILE_INFO, payload);
+
+         assertThat(response.fileId()).isEqualTo(FILE_ID);
+
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         RecordedRequest failed = server.takeRequest();
+         assertRequest(failed, "POST", "/b2api/v1/b2_upload_file?cvt=c001_v0001007_t0042&bucket=" + BUCKET_ID);
+         assertThat(failed.getHeader(HttpHeaders.AUTHORIZATION)).isEqualTo("FAKE-AUTHORIZATION-TOKEN");
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_get_upload_url", "/get_upload_url_request.json");
+         RecordedRequest retried = server.takeRequest();
+         assertRequest(retried, "POST", "/b2api/v1/b2_upload_file?cvt=c001_v0001007_t0043&bucket=" + BUCKET_ID);
+         assertThat(retried.getHeader(HttpHeaders.AUTHORIZATION)).isEqualTo("NEW-AUTHORIZATION-TOKEN");
+         assertThat(new String(retried.getBody(), Charsets.UTF_8)).isEqualTo(PAYLOAD);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testUploadFileHexDigitsAtEnd() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/upload_file_response.json")));
+
+      try {
+         ObjectApi api = api(server.getUrl("/").toString(), "b2").getObjectApi();
+
+         UploadUrlResponse uploadUrl = UploadUrlResponse.create(BUCKET_ID, server.getUrl("/b2api/v1/b2_upload_file/4a48fe8875c6214145260818/c001_v0001007_t0042").toURI(), "FAKE-AUTHORIZATION-TOKEN");
+         Payload payload = Payloads.newStringPayload(PAYLOAD);
+         payload.getContentMetadata().setContentType(CONTENT_TYPE);
+         UploadFileResponse response = api.uploadFile(uploadUrl, FILE_NAME, B2Headers.HEX_DIGITS_AT_END, FILE_INFO, payload);
+         assertThat(response.contentSha1()).isEqualTo(SHA1);
+
+         assertThat(server.getRequestCount()).isEqualTo(1);
+         RecordedRequest request = server.takeRequest();
+         assertRequest(request, "POST", "/b2api/v1/b2_upload_file/4a48fe8875c6214145260818/c001_v0001007_t0042");
+         assertThat(request.getHeader(B2Headers.CONTENT_SHA1)).isEqualTo(B2Headers.HEX_DIGITS_AT_END);
+         assertThat(request.getHeader(HttpHeaders.CONTENT_LENGTH)).isEqualTo(String.valueOf(PAYLOAD.length() + SHA1.length()));
+         assertThat(new String(request.getBody(), Charsets.UTF_8)).isEqualTo(PAYLOAD + SHA1);
+      } finally {
+         server.shutdown();
+      }
+   }
+
    public void testDeleteFileVersion() throws Exception {
       MockWebServer server = createMockWebServer();
       server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
@@ -331,6 +392,46 @@ public final class ObjectApiMockTest {
       }
    }
 
+   public void testGetFileInfoByName() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+
+      server.enqueue(new MockResponse()
+            .addHeader(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE)
+            .setHeader(HttpHeaders.CONTENT_LENGTH, PAYLOAD.length())
+            .addHeader(B2Headers.FILE_ID, FILE_ID)
+            .addHeader(B2Headers.FILE_NAME, FILE_NAME)
+            .addHeader(B2Headers.CONTENT_SHA1, SHA1)
+            .addHeader(B2Headers.UPLOAD_TIMESTAMP, String.valueOf(1500000000000L))
+            .addHeader(B2Headers.FILE_INFO_PREFIX + FILE_INFO.entrySet().iterator().next().getKey(), FILE_INFO.entrySet().iterator().next().getValue()));
+
+      try {
+         ObjectApi api = api(server.getUrl("/").toString(), "b2").getObjectApi();
+
+         B2Object b2Object = api.getFileInfoByName(BUCKET_NAME, FILE_NAME);
+
+         assertThat(b2Object.fileId()).isEqualTo(FILE_ID);
+         assertThat(b2Object.fileName()).isEqualTo(FILE_NAME);
+         assertThat(b2Object.contentSha1()).isEqualTo(SHA1);
+         assertThat(b2Object.fileInfo()).isEqualTo(FILE_INFO);
+         assertThat(b2Object.uploadTimestamp()).isAfterYear(2015);
+         assertThat(b2Object.contentLength()).isEqualTo(PAYLOAD.length());
+         assertThat(b2Object.contentType()).isEqualTo(CONTENT_TYPE);
+
+         assertThat(server.getRequestCount()).isEqualTo(2);
+
+         RecordedRequest request = server.takeRequest();
+         assertThat(request.getMethod()).isEqualTo("GET");
+         assertThat(request.getPath()).isEqualTo("/b2api/v1/b2_authorize_account");
+
+         request = server.takeRequest();
+         assertThat(request.getMethod()).isEqualTo("HEAD");
+         assertThat(request.getPath()).isEqualTo("/file/BUCKET_NAME/typing_test.txt");
+      } finally {
+         server.shutdown();
+      }
+   }
+
    public void testListFileNames() throws Exception {
       MockWebServer server = createMockWebServer();
       server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
@@ -351,6 +452,9 @@ public final class ObjectApiMockTest {
          assertThat(object.fileName()).isEqualTo("files/hello.txt");
          assertThat(object.size()).isEqualTo(6);
          assertThat(object.uploadTimestamp()).isEqualTo(new Date(1439083733000L));
+         assertThat(object.contentSha1()).isEqualTo("f572d396fae9206628714fb2ce00f72e94f2258f");
+         assertThat(object.contentType()).isEqualTo("text/plain");
+         assertThat(object.fileInfo()).isEqualTo(FILE_INFO);
 
          object = list.files().get(1);
          assertThat(object.action()).isEqualTo(Action.UPLOAD);
@@ -358,6 +462,9 @@ public final class ObjectApiMockTest {
          assertThat(object.fileName()).isEqualTo("files/world.txt");
          assertThat(object.size()).isEqualTo(6);
          assertThat(object.uploadTimestamp()).isEqualTo(new Date(1439083734000L));
+         assertThat(object.contentSha1()).isEqualTo("ea44b8e4a5a9fb8bd11a6f1e1b8ac5a2ed8bd6c5");
+         assertThat(object.contentType()).isEqualTo("text/plain");
+         assertThat(object.fileInfo()).isEmpty();
 
          assertThat(server.getRequestCount()).isEqualTo(2);
          assertAuthentication(server);
@@ -367,6 +474,36 @@ public final class ObjectApiMockTest {
       }
    }
 
+   public void testListFileNamesWithPrefixAndDelimiter() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/list_file_names_prefix_delimiter_response.json")));
+
+      try {
+         ObjectApi api = api(server.getUrl("/").toString(), "b2").getObjectApi();
+
+         B2ObjectList list = api.listFileNames(BUCKET_ID, null, 10, "files/", "/");
+
+         assertThat(list.nextFileName()).isNull();
+         assertThat(list.files()).hasSize(2);
+
+         B2ObjectList.Entry object = list.files().get(0);
+         assertThat(object.action()).isEqualTo(Action.UPLOAD);
+         assertThat(object.fileName()).isEqualTo("files/hello.txt");
+
+         object = list.files().get(1);
+         assertThat(object.action()).isEqualTo(Action.FOLDER);
+         assertThat(object.fileId()).isNull();
+         assertThat(object.fileName()).isEqualTo("files/photos/");
+
+         assertThat(server.getRequestCount()).isEqualTo(2);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_file_names", "/list_file_names_prefix_delimiter_request.json");
+      } finally {
+         server.shutdown();
+      }
+   }
+
    public void testListFileVersions() throws Exception {
       MockWebServer server = createMockWebServer();
       server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
@@ -411,6 +548,35 @@ public final class ObjectApiMockTest {
       }
    }
 
+   public void testListFileVersionsWithUnfinishedLargeFile() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody(stringFromResource("/list_file_versions_unfinished_large_file_response.json")));
+
+      try {
+         ObjectApi api = api(server.getUrl("/").toString(), "b2").getObjectApi();
+
+         B2ObjectList list = api.listFileVersions(BUCKET_ID, null, null, null);
+
+         assertThat(list.nextFileId()).isNull();
+         assertThat(list.nextFileName()).isNull();
+         assertThat(list.files()).hasSize(1);
+
+         B2ObjectList.Entry object = list.files().get(0);
+         assertThat(object.action()).isEqualTo(Action.START);
+         assertThat(object.fileId()).isEqualTo("4_z27c88f1d182b150646ff0b16_f200ec353a2184825_d20160409_m004829_c000_v0001016_t0028");
+         assertThat(object.fileName()).isEqualTo("files/large.bin");
+         assertThat(object.size()).isEqualTo(0);
+         assertThat(object.uploadTimestamp()).isEqualTo(new Date(1460162909000L));
+
+         assertThat(server.getRequestCount()).isEqualTo(2);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_list_file_versions", "/list_file_versions_request.json");
+      } finally {
+         server.shutdown();
+      }
+   }
+
    public void testHideFile() throws Exception {
       MockWebServer server = createMockWebServer();
       server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
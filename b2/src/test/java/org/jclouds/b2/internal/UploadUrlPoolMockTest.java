@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.b2.features.B2TestUtils.api;
+import static org.jclouds.b2.features.B2TestUtils.assertAuthentication;
+import static org.jclouds.b2.features.B2TestUtils.assertRequest;
+import static org.jclouds.b2.features.B2TestUtils.createMockWebServer;
+import static org.jclouds.b2.features.B2TestUtils.stringFromResource;
+
+import org.jclouds.b2.B2Api;
+import org.jclouds.b2.domain.GetUploadPartResponse;
+import org.jclouds.b2.domain.UploadUrlResponse;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "UploadUrlPoolMockTest")
+public final class UploadUrlPoolMockTest {
+   private static final String BUCKET_ID = "4a48fe8875c6214145260818";
+   private static final String FILE_ID = "4_za71f544e781e6891531b001a_f200ec353a2184825_d20160409_m004829_c000_v0001016_t0028";
+   private static final String OTHER_FILE_ID = "4_za71f544e781e6891531b001a_f200ec353a2184826_d20160409_m004829_c000_v0001016_t0029";
+   private static final long SESSION_INTERVAL = 60;
+
+   public void testReleasedUploadUrlIsReused() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(uploadUrlResponse("TOKEN-1"));
+
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         UploadUrlPool pool = new UploadUrlPool(api, 2, SESSION_INTERVAL);
+         UploadUrlResponse uploadUrl = pool.acquireUploadUrl(BUCKET_ID);
+         pool.releaseUploadUrl(uploadUrl);
+         assertThat(pool.acquireUploadUrl(BUCKET_ID)).isEqualTo(uploadUrl);
+
+         assertThat(server.getRequestCount()).isEqualTo(2);
+         assertAuthentication(server);
+         assertRequest(server.takeRequest(), "POST", "/b2api/v1/b2_get_upload_url");
+      } finally {
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   public void testLeasedUploadUrlIsNotSharedAndDiscardedUrlIsNotReused() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(uploadUrlResponse("TOKEN-1"));
+      server.enqueue(uploadUrlResponse("TOKEN-2"));
+      server.enqueue(uploadUrlResponse("TOKEN-3"));
+
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         UploadUrlPool pool = new UploadUrlPool(api, 2, SESSION_INTERVAL);
+         UploadUrlResponse first = pool.acquireUploadUrl(BUCKET_ID);
+         // B2 allows one upload at a time per URL so a leased URL is never handed out twice
+         UploadUrlResponse second = pool.acquireUploadUrl(BUCKET_ID);
+         assertThat(second.authorizationToken()).isEqualTo("TOKEN-2");
+
+         // a failed upload discards its URL, which must not return to the pool even if released later
+         pool.discard(first.authorizationToken());
+         pool.releaseUploadUrl(first);
+         assertThat(pool.acquireUploadUrl(BUCKET_ID).authorizationToken()).isEqualTo("TOKEN-3");
+
+         assertThat(server.getRequestCount()).isEqualTo(4);
+      } finally {
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   public void testExpiredUploadUrlIsNotReused() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(uploadUrlResponse("TOKEN-1"));
+      server.enqueue(uploadUrlResponse("TOKEN-2"));
+
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         // tokens expire as soon as they are issued
+         UploadUrlPool pool = new UploadUrlPool(api, 2, 0);
+         pool.releaseUploadUrl(pool.acquireUploadUrl(BUCKET_ID));
+         assertThat(pool.acquireUploadUrl(BUCKET_ID).authorizationToken()).isEqualTo("TOKEN-2");
+
+         assertThat(server.getRequestCount()).isEqualTo(3);
+      } finally {
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   public void testPoolSizeBoundsPooledUploadUrls() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(uploadUrlResponse("TOKEN-1"));
+      server.enqueue(uploadUrlResponse("TOKEN-2"));
+      server.enqueue(uploadUrlResponse("TOKEN-3"));
+
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         UploadUrlPool pool = new UploadUrlPool(api, 1, SESSION_INTERVAL);
+         UploadUrlResponse first = pool.acquireUploadUrl(BUCKET_ID);
+         UploadUrlResponse second = pool.acquireUploadUrl(BUCKET_ID);
+         pool.releaseUploadUrl(first);
+         pool.releaseUploadUrl(second);
+
+         assertThat(pool.acquireUploadUrl(BUCKET_ID)).isEqualTo(first);
+         assertThat(pool.acquireUploadUrl(BUCKET_ID).authorizationToken()).isEqualTo("TOKEN-3");
+         assertThat(server.getRequestCount()).isEqualTo(4);
+      } finally {
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   public void testUploadPartUrlsArePooledPerFile() throws Exception {
+      MockWebServer server = createMockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(uploadPartUrlResponse(FILE_ID, "TOKEN-1"));
+      server.enqueue(uploadPartUrlResponse(OTHER_FILE_ID, "TOKEN-2"));
+      server.enqueue(uploadPartUrlResponse(FILE_ID, "TOKEN-3"));
+
+      B2Api api = api(server.getUrl("/").toString(), "b2");
+      try {
+         UploadUrlPool pool = new UploadUrlPool(api, 2, SESSION_INTERVAL);
+         GetUploadPartResponse uploadUrl = pool.acquireUploadPartUrl(FILE_ID);
+         pool.releaseUploadPartUrl(uploadUrl);
+
+         assertThat(pool.acquireUploadPartUrl(OTHER_FILE_ID).authorizationToken()).isEqualTo("TOKEN-2");
+         assertThat(pool.acquireUploadPartUrl(FILE_ID)).isEqualTo(uploadUrl);
+         pool.releaseUploadPartUrl(uploadUrl);
+
+         // finishing or cancelling the large file drops its URLs
+         pool.discardUploadPartUrls(FILE_ID);
+         assertThat(pool.acquireUploadPartUrl(FILE_ID).authorizationToken()).isEqualTo("TOKEN-3");
+
+         assertThat(server.getRequestCount()).isEqualTo(4);
+         assertAuthentication(server);
+         assertUploadPartUrlRequest(server.takeRequest(), FILE_ID);
+         assertUploadPartUrlRequest(server.takeRequest(), OTHER_FILE_ID);
+         assertUploadPartUrlRequest(server.takeRequest(), FILE_ID);
+      } finally {
+         api.close();
+         server.shutdown();
+      }
+   }
+
+   private static void assertUploadPartUrlRequest(RecordedRequest request, String fileId) {
+      assertRequest(request, "POST", "/b2api/v1/b2_get_upload_part_url");
+      assertThat(new String(request.getBody(), Charsets.UTF_8)).contains(fileId);
+   }
+
+   private static MockResponse uploadUrlResponse(String authorizationToken) {
+      return new MockResponse().setBody("{\"bucketId\": \"" + BUCKET_ID + "\", "
+            + "\"uploadUrl\": \"https://pod-000-1005-03.backblaze.com/b2api/v1/b2_upload_file/" + BUCKET_ID
+            + "/c001_v0001005_t0027\", \"authorizationToken\": \"" + authorizationToken + "\"}");
+   }
+
+   private static MockResponse uploadPartUrlResponse(String fileId, String authorizationToken) {
+      return new MockResponse().setBody("{\"fileId\": \"" + fileId + "\", "
+            + "\"uploadUrl\": \"https://pod-000-1016-09.backblaze.com/b2api/v1/b2_upload_part/" + fileId
+            + "/0037\", \"authorizationToken\": \"" + authorizationToken + "\"}");
+   }
+}
@@ -16,6 +16,14 @@
  */
 package org.jclouds.h2.jdbc;
 
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_CACHE_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_POOL_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_SCHEMA_MODE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_STATEMENT_CACHE_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_URL;
+
+import java.util.Properties;
+
 import org.jclouds.h2.jdbc.config.H2JdbcBlobStoreContextModule;
 import org.jclouds.jdbc.JdbcApiMetadata;
 import org.jclouds.providers.ProviderMetadata;
@@ -43,10 +51,21 @@ public class H2JdbcProviderMetadata extends BaseProviderMetadata {
       super(builder);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = JdbcApiMetadata.defaultProperties();
+      properties.setProperty(PROPERTY_URL, "jdbc:h2:./jclouds-db");
+      properties.setProperty(PROPERTY_POOL_SIZE, "10");
+      properties.setProperty(PROPERTY_STATEMENT_CACHE_SIZE, "64");
+      properties.setProperty(PROPERTY_CACHE_SIZE, "65536");
+      properties.setProperty(PROPERTY_SCHEMA_MODE, "update");
+      return properties;
+   }
+
    public static class Builder extends BaseProviderMetadata.Builder {
       protected Builder() {
          id("h2-jdbc")
                .name("H2 Jdbc")
+               .defaultProperties(H2JdbcProviderMetadata.defaultProperties())
                .apiMetadata(new JdbcApiMetadata()
                      .toBuilder()
                      .defaultModule(H2JdbcBlobStoreContextModule.class)
@@ -16,23 +16,78 @@
  */
 package org.jclouds.h2.jdbc.config;
 
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_CACHE_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_POOL_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_SCHEMA_MODE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_STATEMENT_CACHE_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_URL;
+
 import java.util.Properties;
 
+import javax.inject.Inject;
+import javax.inject.Named;
+
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
 import com.google.inject.persist.jpa.JpaPersistModule;
 
 public class H2JdbcBlobStoreContextModule extends JdbcBlobStoreContextModule {
 
-   private static final String DEFAULT_FILE = "./jclouds-db";
-
    protected void configure() {
       super.configure();
 
       Properties properties = new Properties();
-      properties.setProperty("hibernate.connection.url", "jdbc:h2:" + DEFAULT_FILE);
-
       install(new JpaPersistModule("jclouds-h2").properties(properties));
+      // Requested injections run before eager singletons, so the properties are set before JPAInitializer starts
+      // the persistence service
+      requestInjection(new PersistenceProperties(properties));
+   }
+
+   static final class PersistenceProperties {
+      private final Properties properties;
+
+      PersistenceProperties(Properties properties) {
+         this.properties = properties;
+      }
+
+      @Inject
+      void configure(@Named(PROPERTY_URL) String url, @Named(PROPERTY_POOL_SIZE) int poolSize,
+            @Named(PROPERTY_STATEMENT_CACHE_SIZE) int statementCacheSize, @Named(PROPERTY_CACHE_SIZE) int cacheSize,
+            @Named(PROPERTY_SCHEMA_MODE) String schemaMode) {
+         properties.setProperty("hibernate.connection.url", withCacheSettings(url, cacheSize, statementCacheSize));
+         properties.setProperty("hibernate.connection.provider_class",
+               "org.hibernate.hikaricp.internal.HikariCPConnectionProvider");
+         properties.setProperty("hibernate.hikari.maximumPoolSize", String.valueOf(poolSize));
+         properties.setProperty("hibernate.hbm2ddl.auto", schemaMode);
+      }
+
+      /**
+       * Appends the cache settings to the URL, leaving out any the URL already sets since H2 rejects a setting given
+       * twice.
+       */
+      static String withCacheSettings(String url, int cacheSize, int statementCacheSize) {
+         StringBuilder result = new StringBuilder(url);
+         if (!hasSetting(url, "CACHE_SIZE")) {
+            result.append(";CACHE_SIZE=").append(cacheSize);
+         }
+         if (!hasSetting(url, "QUERY_CACHE_SIZE")) {
+            result.append(";QUERY_CACHE_SIZE=").append(statementCacheSize);
+         }
+         return result.toString();
+      }
+
+      private static boolean hasSetting(String url, String name) {
+         // the first part is the database name
+         for (String setting : Iterables.skip(Splitter.on(';').split(url), 1)) {
+            int equals = setting.indexOf('=');
+            if (equals != -1 && setting.substring(0, equals).trim().equalsIgnoreCase(name)) {
+               return true;
+            }
+         }
+         return false;
+      }
    }
 
 }
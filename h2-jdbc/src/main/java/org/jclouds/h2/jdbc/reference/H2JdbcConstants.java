@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.reference;
+
+/**
+ * Configuration properties of the h2-jdbc provider
+ */
+public final class H2JdbcConstants {
+
+   /**
+    * JDBC URL of the database. The cache settings are appended unless the URL already sets CACHE_SIZE or
+    * QUERY_CACHE_SIZE, in which case its own value wins. Defaults to jdbc:h2:./jclouds-db
+    */
+   public static final String PROPERTY_URL = "jclouds.h2.url";
+
+   /** Maximum number of pooled connections shared by concurrent blobstore operations. Defaults to 10. */
+   public static final String PROPERTY_POOL_SIZE = "jclouds.h2.pool-size";
+
+   /** Number of prepared statements H2 caches per connection (QUERY_CACHE_SIZE). Defaults to 64. */
+   public static final String PROPERTY_STATEMENT_CACHE_SIZE = "jclouds.h2.statement-cache-size";
+
+   /** Size in KB of the MVStore page cache (CACHE_SIZE). Defaults to 65536. */
+   public static final String PROPERTY_CACHE_SIZE = "jclouds.h2.cache-size";
+
+   /**
+    * How the schema is managed on startup: update, validate, create or create-drop. Defaults to update, which keeps
+    * existing data.
+    */
+   public static final String PROPERTY_SCHEMA_MODE = "jclouds.h2.schema-mode";
+
+   private H2JdbcConstants() {
+      throw new AssertionError("Intentionally Unimplemented");
+   }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.benchmark;
+
+import static org.jclouds.blobstore.options.GetOptions.Builder.range;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * Measures storing, reading, range reading and removing a single blob of varying size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlobBenchmark {
+
+   private static final String CONTAINER = "benchmark";
+   private static final String BLOB = "blob";
+   private static final long RANGE_LENGTH = 64 * 1024;
+
+   @Param({ "1024", "1048576", "67108864", "1073741824" })
+   public long blobSize;
+
+   private File directory;
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ByteSource payload;
+   private long rangeOffset;
+   private long rangeLength;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      directory = Files.createTempDir();
+      context = H2JdbcBenchmarks.newContext(directory);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      payload = H2JdbcBenchmarks.payload(blobSize);
+      rangeLength = Math.min(RANGE_LENGTH, blobSize);
+      rangeOffset = (blobSize - rangeLength) / 2;
+      blobStore.putBlob(CONTAINER, newBlob(BLOB));
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      context.close();
+      H2JdbcBenchmarks.delete(directory);
+   }
+
+   @Benchmark
+   public String putBlob() {
+      return blobStore.putBlob(CONTAINER, newBlob("put"));
+   }
+
+   @Benchmark
+   public long getBlob() throws IOException {
+      return drain(blobStore.getBlob(CONTAINER, BLOB));
+   }
+
+   @Benchmark
+   public long getRange() throws IOException {
+      return drain(blobStore.getBlob(CONTAINER, BLOB, range(rangeOffset, rangeOffset + rangeLength - 1)));
+   }
+
+   @Benchmark
+   public void removeBlob(RemovedBlob removed) {
+      blobStore.removeBlob(CONTAINER, removed.key);
+   }
+
+   /**
+    * Stores the blob removed by each {@link #removeBlob} invocation. Per invocation setup is only accurate for
+    * operations well above a millisecond, which holds for all but the smallest blobs.
+    */
+   @State(Scope.Thread)
+   public static class RemovedBlob {
+
+      private final String key = "remove";
+
+      @Setup(Level.Invocation)
+      public void setUp(BlobBenchmark benchmark) {
+         benchmark.blobStore.putBlob(CONTAINER, benchmark.newBlob(key));
+      }
+   }
+
+   private Blob newBlob(String key) {
+      return blobStore.blobBuilder(key).payload(payload).contentLength(blobSize).build();
+   }
+
+   private static long drain(Blob blob) throws IOException {
+      InputStream in = blob.getPayload().openStream();
+      try {
+         return ByteStreams.copy(in, ByteStreams.nullOutputStream());
+      } finally {
+         in.close();
+      }
+   }
+}
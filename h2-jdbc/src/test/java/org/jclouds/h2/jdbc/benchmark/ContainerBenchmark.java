@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.benchmark;
+
+import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+/**
+ * Measures listing, counting and clearing containers holding a varying number of small blobs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContainerBenchmark {
+
+   private static final String CONTAINER = "benchmark";
+   private static final String CLEARED_CONTAINER = "cleared";
+   private static final int BLOB_SIZE = 1024;
+
+   @Param({ "100", "10000" })
+   public int blobCount;
+
+   private File directory;
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ByteSource payload;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      directory = Files.createTempDir();
+      context = H2JdbcBenchmarks.newContext(directory);
+      blobStore = context.getBlobStore();
+      payload = H2JdbcBenchmarks.payload(BLOB_SIZE);
+      blobStore.createContainerInLocation(null, CONTAINER);
+      blobStore.createContainerInLocation(null, CLEARED_CONTAINER);
+      fill(CONTAINER);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      context.close();
+      H2JdbcBenchmarks.delete(directory);
+   }
+
+   @Benchmark
+   public int list() {
+      int count = 0;
+      ListContainerOptions options = recursive();
+      while (true) {
+         PageSet<? extends StorageMetadata> page = blobStore.list(CONTAINER, options);
+         count += page.size();
+         if (page.getNextMarker() == null) {
+            return count;
+         }
+         options = recursive().afterMarker(page.getNextMarker());
+      }
+   }
+
+   @Benchmark
+   public long countBlobs() {
+      return blobStore.countBlobs(CONTAINER);
+   }
+
+   @Benchmark
+   @BenchmarkMode(Mode.SingleShotTime)
+   public void clearContainer(FilledContainer filled) {
+      blobStore.clearContainer(CLEARED_CONTAINER);
+   }
+
+   /**
+    * Refills the container emptied by each {@link #clearContainer} invocation.
+    */
+   @State(Scope.Thread)
+   public static class FilledContainer {
+
+      @Setup(Level.Invocation)
+      public void setUp(ContainerBenchmark benchmark) {
+         benchmark.fill(CLEARED_CONTAINER);
+      }
+   }
+
+   private void fill(String container) {
+      for (int i = 0; i < blobCount; i++) {
+         blobStore.putBlob(container, blobStore.blobBuilder(String.format("dir%d/blob%06d", i % 10, i))
+               .payload(payload).contentLength(BLOB_SIZE).build());
+      }
+   }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.benchmark;
+
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_SCHEMA_MODE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_URL;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStoreContext;
+
+import com.google.common.io.ByteSource;
+
+/**
+ * Helpers shared by the benchmarks, each of which runs against its own embedded database in a temporary directory.
+ */
+final class H2JdbcBenchmarks {
+
+   private static final int BLOCK_SIZE = 1024 * 1024;
+
+   static BlobStoreContext newContext(File directory) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_URL, "jdbc:h2:" + new File(directory, "benchmark").getAbsolutePath());
+      overrides.setProperty(PROPERTY_SCHEMA_MODE, "create");
+      return ContextBuilder.newBuilder("h2-jdbc").overrides(overrides).buildView(BlobStoreContext.class);
+   }
+
+   /**
+    * Returns a payload of the given size built from a repeated block, so that generating it costs next to nothing
+    * next to storing it.
+    */
+   static ByteSource payload(long size) {
+      byte[] block = new byte[BLOCK_SIZE];
+      Arrays.fill(block, (byte) 'a');
+      int blocks = (int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+      return ByteSource.concat(Collections.nCopies(blocks, ByteSource.wrap(block))).slice(0, size);
+   }
+
+   static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+
+   private H2JdbcBenchmarks() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -16,7 +16,14 @@
  */
 package org.jclouds.h2.jdbc.blobstore;
 
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_SCHEMA_MODE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_URL;
+
+import java.io.File;
+import java.util.Properties;
+
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
 import com.google.inject.Module;
 import org.jclouds.blobstore.integration.internal.BaseBlobIntegrationTest;
 import org.testng.annotations.Test;
@@ -28,6 +35,15 @@ public class H2JdbcBlobIntegrationTest extends BaseBlobIntegrationTest {
       provider = "h2-jdbc";
    }
 
+   @Override
+   protected Properties setupProperties() {
+      Properties props = super.setupProperties();
+      // a fresh database in a temporary directory rather than the default one in the working directory
+      props.setProperty(PROPERTY_URL, "jdbc:h2:" + new File(Files.createTempDir(), "blob-integration").getAbsolutePath());
+      props.setProperty(PROPERTY_SCHEMA_MODE, "create");
+      return props;
+   }
+
    @Override
    protected Iterable<Module> setupModules() {
       return ImmutableSet.<Module> of(this.getLoggingModule());
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.config;
+
+import static org.jclouds.h2.jdbc.config.H2JdbcBlobStoreContextModule.PersistenceProperties.withCacheSettings;
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "H2JdbcBlobStoreContextModuleTest")
+public class H2JdbcBlobStoreContextModuleTest {
+
+   public void testCacheSettingsAreAppended() {
+      assertEquals(withCacheSettings("jdbc:h2:./jclouds-db;MODE=MySQL", 1024, 32),
+            "jdbc:h2:./jclouds-db;MODE=MySQL;CACHE_SIZE=1024;QUERY_CACHE_SIZE=32");
+   }
+
+   public void testCacheSettingsOfTheUrlAreKept() {
+      assertEquals(withCacheSettings("jdbc:h2:./jclouds-db;cache_size=2048", 1024, 32),
+            "jdbc:h2:./jclouds-db;cache_size=2048;QUERY_CACHE_SIZE=32");
+      assertEquals(withCacheSettings("jdbc:h2:./jclouds-db; QUERY_CACHE_SIZE = 8;CACHE_SIZE=2048", 1024, 32),
+            "jdbc:h2:./jclouds-db; QUERY_CACHE_SIZE = 8;CACHE_SIZE=2048");
+   }
+
+   public void testDatabaseNameIsNotASetting() {
+      assertEquals(withCacheSettings("jdbc:h2:mem:CACHE_SIZE=1", 1024, 32),
+            "jdbc:h2:mem:CACHE_SIZE=1;CACHE_SIZE=1024;QUERY_CACHE_SIZE=32");
+   }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.conversion;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.name.Named;
+import org.jclouds.Constants;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.service.BlobSnapshot;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.JdbcByteSource;
+
+public class BlobSnapshotToBlob implements Function<BlobSnapshot, Blob> {
+
+   private final Provider<BlobBuilder> blobBuilders;
+   private final JdbcService jdbcService;
+
+   @Inject(optional = true)
+   @Named(JdbcConstants.PROPERTY_READ_AHEAD_CHUNKS)
+   private int readAheadChunks = 0;
+
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_USER_THREADS)
+   private ListeningExecutorService userExecutor = MoreExecutors.sameThreadExecutor();
+
+   @Inject
+   BlobSnapshotToBlob(Provider<BlobBuilder> blobBuilders, JdbcService jdbcService) {
+      this.blobBuilders = blobBuilders;
+      this.jdbcService = jdbcService;
+   }
+
+   @Override
+   public Blob apply(BlobSnapshot blobSnapshot) {
+      if (blobSnapshot == null) {
+         return null;
+      }
+
+      BlobBuilder builder = blobBuilders.get()
+            .name(blobSnapshot.getKey())
+            .userMetadata(blobSnapshot.getUserMetadata());
+
+      if (blobSnapshot.isDirectory()) {
+         builder.type(StorageType.FOLDER);
+      }
+      else {
+         int chunkSize = blobSnapshot.getChunkSize() == null ? JdbcConstants.DEFAULT_CHUNK_SIZE
+               : blobSnapshot.getChunkSize();
+         // Chunk ids are only loaded if the payload is read
+         builder.payload(new JdbcByteSource(jdbcService, blobSnapshot.getPayloadId(), chunkSize,
+               blobSnapshot.getSize(), userExecutor, readAheadChunks));
+      }
+
+      Blob blob = builder.build();
+
+      blob.getMetadata().setContainer(blobSnapshot.getContainerName());
+      blob.getMetadata().setCreationDate(blobSnapshot.getCreationDate());
+      blob.getMetadata().setLastModified(blobSnapshot.getLastModified());
+      blob.getMetadata().setSize(blobSnapshot.getSize());
+      blob.getMetadata().setUserMetadata(blobSnapshot.getUserMetadata());
+
+      blob.getMetadata().getContentMetadata().setCacheControl(blobSnapshot.getCacheControl());
+      blob.getMetadata().getContentMetadata().setContentType(blobSnapshot.getContentType());
+      blob.getMetadata().getContentMetadata().setContentDisposition(blobSnapshot.getContentDisposition());
+      blob.getMetadata().getContentMetadata().setContentEncoding(blobSnapshot.getContentEncoding());
+      blob.getMetadata().getContentMetadata().setContentLanguage(blobSnapshot.getContentLanguage());
+      blob.getMetadata().getContentMetadata().setContentLength(blobSnapshot.getContentLength());
+      blob.getMetadata().getContentMetadata().setContentMD5(blobSnapshot.getContentMD5());
+      blob.getMetadata().setETag(blobSnapshot.getEtag());
+      blob.getMetadata().getContentMetadata().setExpires(blobSnapshot.getExpires());
+      return blob;
+   }
+
+}
@@ -45,7 +45,7 @@ public class BlobEntity {
    @Id
    private String key;
 
-   @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+   @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
    private PayloadEntity payload;
 
    @ElementCollection(fetch = FetchType.EAGER)
@@ -22,11 +22,12 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.Table;
 
 @Entity
-@Table
+@Table(indexes = @Index(columnList = "hash"))
 public class ChunkEntity {
 
    @Id
@@ -34,14 +35,26 @@ public class ChunkEntity {
    private Long id;
 
    @Lob
-   @Column(length = JdbcConstants.DEFAULT_CHUNK_SIZE)
+   @Column(length = JdbcConstants.MAX_CHUNK_SIZE)
    private byte[] data;
 
    private int size;
 
+   /** Hex SHA-256 of the data when the chunk may be shared between blobs, null otherwise. */
+   private String hash;
+
+   /** Number of payloads referencing this chunk. */
+   private int refCount;
+
    public ChunkEntity(byte[] data, int size) {
+      this(data, size, null);
+   }
+
+   public ChunkEntity(byte[] data, int size, String hash) {
       this.data = data;
       this.size = size;
+      this.hash = hash;
+      this.refCount = 1;
    }
 
    public ChunkEntity() {
@@ -70,4 +83,20 @@ public class ChunkEntity {
    public void setSize(int size) {
       this.size = size;
    }
+
+   public String getHash() {
+      return hash;
+   }
+
+   public void setHash(String hash) {
+      this.hash = hash;
+   }
+
+   public int getRefCount() {
+      return refCount;
+   }
+
+   public void setRefCount(int refCount) {
+      this.refCount = refCount;
+   }
 }
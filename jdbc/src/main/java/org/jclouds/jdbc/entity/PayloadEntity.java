@@ -23,6 +23,7 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.OrderColumn;
 import java.util.Date;
 import java.util.List;
 
@@ -33,9 +34,14 @@ public class PayloadEntity {
    @GeneratedValue
    private Long id;
 
-   @ElementCollection(fetch = FetchType.EAGER)
+   /** Loaded lazily so that metadata operations do not read the chunk list of large blobs. */
+   @ElementCollection(fetch = FetchType.LAZY)
+   @OrderColumn
    private List<Long> chunks;
 
+   /** Size of every chunk but the last, null for payloads written with the default chunk size. */
+   private Integer chunkSize;
+
    private String cacheControl;
    private String contentType;
    private Long contentLength;
@@ -77,6 +83,14 @@ public class PayloadEntity {
       this.chunks = chunks;
    }
 
+   public Integer getChunkSize() {
+      return chunkSize;
+   }
+
+   public void setChunkSize(Integer chunkSize) {
+      this.chunkSize = chunkSize;
+   }
+
    public String getCacheControl() {
       return cacheControl;
    }
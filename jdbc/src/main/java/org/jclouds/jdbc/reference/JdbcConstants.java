@@ -23,6 +23,45 @@ public final class JdbcConstants {
 
     public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
 
+    /** Largest chunk size the chunk table can hold. */
+    public static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Size in bytes of the chunks new blobs are split into, at most {@link #MAX_CHUNK_SIZE}. Existing blobs keep the
+     * chunk size they were written with. Defaults to {@link #DEFAULT_CHUNK_SIZE}.
+     */
+    public static final String PROPERTY_CHUNK_SIZE = "jclouds.jdbc.chunk-size";
+
+    /**
+     * Whether chunks with identical content are stored once and shared between blobs. Shared chunks are reference
+     * counted and deleted with the last blob using them. Defaults to false.
+     */
+    public static final String PROPERTY_DEDUPLICATE_CHUNKS = "jclouds.jdbc.deduplicate-chunks";
+
+    /**
+     * Number of chunks fetched ahead of the one being read when streaming a blob. Each prefetched chunk holds up to
+     * one chunk of memory. Defaults to 0, which fetches chunks only when they are needed.
+     */
+    public static final String PROPERTY_READ_AHEAD_CHUNKS = "jclouds.jdbc.read-ahead-chunks";
+
+    /**
+     * Number of chunks written per batch when storing a blob. Chunks are flushed and detached after each batch, so
+     * writes hold at most this many chunks in memory regardless of blob size. Defaults to 8.
+     */
+    public static final String PROPERTY_WRITE_BATCH_CHUNKS = "jclouds.jdbc.write-batch-chunks";
+
+    /**
+     * Seconds container and blob metadata stay cached after being read. Writes through this blob store evict the
+     * entries they change, so the expiry only bounds staleness from writes made by other processes sharing the
+     * database. Defaults to 60, 0 disables the cache.
+     */
+    public static final String PROPERTY_METADATA_CACHE_TTL = "jclouds.jdbc.metadata-cache.ttl";
+
+    /**
+     * Maximum number of containers and of blobs whose metadata is cached. Defaults to 10000.
+     */
+    public static final String PROPERTY_METADATA_CACHE_SIZE = "jclouds.jdbc.metadata-cache.size";
+
     private JdbcConstants() {
         throw new AssertionError("Intentionally Unimplemented");
     }
@@ -19,21 +19,54 @@ package org.jclouds.jdbc.repository;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
 import org.jclouds.jdbc.entity.ContainerEntity;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import java.util.List;
 
 @Singleton
 public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK> {
 
+   /** Blobs below a directory, i.e., whose key starts with the directory followed by a separator. */
+   private static final String IN_DIRECTORY = " AND b.key != :directoryName AND b.key LIKE :directoryLike ESCAPE '\\'";
+   /** Excludes blobs below a subdirectory, keeping the subdirectories themselves. */
+   private static final String NOT_NESTED = " AND b.key NOT LIKE :nestedLike ESCAPE '\\'";
+
    @Inject
    private BlobRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
    }
 
+   /**
+    * Checks whether a blob exists without loading it.
+    */
+   public boolean blobExists(ContainerEntity containerEntity, String key) {
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity AND b.key = :key", Long.class)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("key", key)
+            .getSingleResult() > 0;
+   }
+
+   /**
+    * Gets the access of a blob without loading it.
+    *
+    * @return the blob access or null if the blob does not exist
+    */
+   public BlobAccess findBlobAccess(ContainerEntity containerEntity, String key) {
+      List<BlobAccess> result = entityManager.get().createQuery("SELECT b.blobAccess FROM " + entityClass.getName()
+            + " b WHERE b.containerEntity = :containerEntity AND b.key = :key", BlobAccess.class)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("key", key)
+            .getResultList();
+      return result.isEmpty() ? null : result.get(0);
+   }
+
     public List<BlobEntity> findBlobsByContainer(ContainerEntity containerEntity) {
         return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
               + "WHERE"
@@ -42,13 +75,88 @@ public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK>
                 .getResultList();
     }
 
+   /**
+    * Lists the blobs below a directory, including those in subdirectories.
+    */
    public List<BlobEntity> findBlobsByDirectory(ContainerEntity containerEntity, String directory) {
-      return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
-            + "WHERE b.containerEntity = :containerEntity AND b.key != :directoryName AND b.key LIKE :directoryLike ", entityClass)
+      TypedQuery<BlobEntity> query = entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity" + IN_DIRECTORY, entityClass)
+            .setParameter("containerEntity", containerEntity);
+      bindDirectory(query, directory, true);
+      return query.getResultList();
+   }
+
+   /**
+    * Lists blob keys in order, starting after the marker, without loading the blobs. Served from the primary key
+    * index on (container, key).
+    *
+    * @param marker the last key of the previous page, or null for the first page
+    */
+   public List<String> findBlobKeysByContainer(ContainerEntity containerEntity, String marker, int maxResults) {
+      TypedQuery<String> query = entityManager.get().createQuery("SELECT b.key FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity"
+            + (marker == null ? "" : " AND b.key > :marker")
+            + " ORDER BY b.key", String.class)
+            .setParameter("containerEntity", containerEntity)
+            .setMaxResults(maxResults);
+      if (marker != null) {
+         query.setParameter("marker", marker);
+      }
+      return query.getResultList();
+   }
+
+   /**
+    * Counts the blobs in a container or below a directory without loading them.
+    *
+    * @param directory the directory to count, or null for the whole container
+    * @param recursive whether to count blobs in subdirectories
+    */
+   public long countBlobs(ContainerEntity containerEntity, String directory, boolean recursive) {
+      TypedQuery<Long> query = entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity"
+            + (directory == null ? "" : IN_DIRECTORY + (recursive ? "" : NOT_NESTED)), Long.class)
+            .setParameter("containerEntity", containerEntity);
+      if (directory != null) {
+         bindDirectory(query, directory, recursive);
+      }
+      return query.getSingleResult();
+   }
+
+   /**
+    * Lists the chunk ids of every blob in a container, once per blob referencing them, without loading the blobs.
+    */
+   public List<Long> findChunkIdsByContainer(ContainerEntity containerEntity) {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " b "
+            + "JOIN b.payload p JOIN p.chunks c "
+            + "WHERE b.containerEntity = :containerEntity", Long.class)
             .setParameter("containerEntity", containerEntity)
-            .setParameter("directoryName", directory)
-            .setParameter("directoryLike", directory + "%")
             .getResultList();
    }
 
+   /**
+    * Lists the chunk ids of the blobs below a directory, once per blob referencing them, without loading the blobs.
+    */
+   public List<Long> findChunkIdsByDirectory(ContainerEntity containerEntity, String directory) {
+      TypedQuery<Long> query = entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " b "
+            + "JOIN b.payload p JOIN p.chunks c "
+            + "WHERE b.containerEntity = :containerEntity" + IN_DIRECTORY, Long.class)
+            .setParameter("containerEntity", containerEntity);
+      bindDirectory(query, directory, true);
+      return query.getResultList();
+   }
+
+   private static void bindDirectory(Query query, String directory, boolean recursive) {
+      String name = directory.endsWith("/") ? directory.substring(0, directory.length() - 1) : directory;
+      String prefix = name.isEmpty() ? "" : escapeLike(name) + "/";
+      query.setParameter("directoryName", name);
+      query.setParameter("directoryLike", prefix + "%");
+      if (!recursive) {
+         query.setParameter("nestedLike", prefix + "%/_%");
+      }
+   }
+
+   private static String escapeLike(String value) {
+      return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+   }
+
 }
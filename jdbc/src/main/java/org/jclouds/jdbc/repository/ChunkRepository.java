@@ -16,19 +16,96 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class ChunkRepository extends GenericRepository<ChunkEntity, Long> {
 
+   /** Maximum number of ids bound to a single IN clause. */
+   private static final int BATCH_SIZE = 500;
+
    @Inject
    private ChunkRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
    }
 
+   /**
+    * Lists the chunk ids of a payload in order without loading the payload.
+    */
+   public List<Long> findChunkIdsByPayload(Long payloadId) {
+      return entityManager.get().createQuery("SELECT c FROM " + PayloadEntity.class.getName() + " p "
+            + "JOIN p.chunks c WHERE p.id = :id ORDER BY INDEX(c)", Long.class)
+            .setParameter("id", payloadId)
+            .getResultList();
+   }
+
+   /**
+    * Finds a chunk with the given content without loading its data.
+    *
+    * @return the chunk id or null if there is none
+    */
+   public Long findChunkIdByHash(String hash, int size) {
+      List<Long> ids = entityManager.get().createQuery("SELECT c.id FROM " + entityClass.getName() + " c "
+            + "WHERE c.hash = :hash AND c.size = :size", Long.class)
+            .setParameter("hash", hash)
+            .setParameter("size", size)
+            .setMaxResults(1)
+            .getResultList();
+      return ids.isEmpty() ? null : ids.get(0);
+   }
+
+   /**
+    * Adds a reference to a chunk found by {@link #findChunkIdByHash}. A concurrent release may have dropped the last
+    * reference in between, in which case the chunk is about to be deleted and must not be reused.
+    *
+    * @return whether the chunk was still referenced and could be acquired
+    */
+   public boolean acquire(Long id) {
+      return entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c "
+            + "SET c.refCount = c.refCount + 1 WHERE c.id = :id AND c.refCount > 0")
+            .setParameter("id", id)
+            .executeUpdate() == 1;
+   }
+
+   /**
+    * Drops one reference per occurrence of each chunk id, deleting the chunks no payload references anymore. Runs a
+    * few statements per batch of chunks instead of loading and removing them one by one.
+    */
+   public void release(Collection<Long> ids) {
+      Multiset<Long> references = HashMultiset.create(ids);
+      Multimap<Integer, Long> idsByCount = ArrayListMultimap.create();
+      for (Multiset.Entry<Long> entry : references.entrySet()) {
+         idsByCount.put(entry.getCount(), entry.getElement());
+      }
+      for (Map.Entry<Integer, Collection<Long>> entry : idsByCount.asMap().entrySet()) {
+         for (List<Long> batch : Iterables.partition(entry.getValue(), BATCH_SIZE)) {
+            entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c "
+                  + "SET c.refCount = c.refCount - :count WHERE c.id IN :ids")
+                  .setParameter("count", entry.getKey())
+                  .setParameter("ids", batch)
+                  .executeUpdate();
+         }
+      }
+      for (List<Long> batch : Iterables.partition(references.elementSet(), BATCH_SIZE)) {
+         entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " c "
+               + "WHERE c.id IN :ids AND c.refCount <= 0")
+               .setParameter("ids", batch)
+               .executeUpdate();
+      }
+   }
+
 }
@@ -44,6 +44,14 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       return entityManager.get().find(entityClass, id);
    }
 
+   /**
+    * Returns a managed reference to the entity with the given id, without loading its state if the provider
+    * supports it.
+    */
+   public T getReference(PK id) {
+      return entityManager.get().getReference(entityClass, id);
+   }
+
    public T save(T entity) {
       return entityManager.get().merge(entity);
    }
@@ -52,4 +60,12 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       entityManager.get().remove(entity);
    }
 
+   /**
+    * Writes pending changes to the database and detaches all managed entities, releasing the memory they hold.
+    */
+   public void flushAndClear() {
+      entityManager.get().flush();
+      entityManager.get().clear();
+   }
+
 }
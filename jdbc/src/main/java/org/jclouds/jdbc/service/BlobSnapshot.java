@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.service;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Immutable copy of a blob's metadata, taken while its entity is managed so that it can be cached and read outside of
+ * any transaction. The chunk list is not copied, readers load it by payload id.
+ */
+public final class BlobSnapshot {
+
+   private final String containerName;
+   private final String key;
+   private final boolean directory;
+   private final Long payloadId;
+   private final Integer chunkSize;
+   private final Long size;
+   private final String etag;
+   private final Long creationDate;
+   private final Long lastModified;
+   private final Map<String, String> userMetadata;
+   private final String cacheControl;
+   private final String contentType;
+   private final Long contentLength;
+   private final HashCode contentMD5;
+   private final String contentDisposition;
+   private final String contentLanguage;
+   private final String contentEncoding;
+   private final Long expires;
+
+   BlobSnapshot(BlobEntity blobEntity) {
+      PayloadEntity payload = blobEntity.getPayload();
+      this.containerName = blobEntity.getContainerEntity().getName();
+      this.key = blobEntity.getKey();
+      this.directory = blobEntity.isDirectory();
+      this.payloadId = payload.getId();
+      this.chunkSize = payload.getChunkSize();
+      this.size = blobEntity.getSize();
+      this.etag = blobEntity.getEtag();
+      this.creationDate = toMillis(blobEntity.getCreationDate());
+      this.lastModified = toMillis(blobEntity.getLastModified());
+      this.userMetadata = blobEntity.getUserMetadata() == null ? null
+            : Collections.unmodifiableMap(Maps.newLinkedHashMap(blobEntity.getUserMetadata()));
+      this.cacheControl = payload.getCacheControl();
+      this.contentType = payload.getContentType();
+      this.contentLength = payload.getContentLength();
+      this.contentMD5 = payload.getContentMD5() == null ? null : HashCode.fromBytes(payload.getContentMD5());
+      this.contentDisposition = payload.getContentDisposition();
+      this.contentLanguage = payload.getContentLanguage();
+      this.contentEncoding = payload.getContentEncoding();
+      this.expires = toMillis(payload.getExpires());
+   }
+
+   public String getContainerName() {
+      return containerName;
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public boolean isDirectory() {
+      return directory;
+   }
+
+   public Long getPayloadId() {
+      return payloadId;
+   }
+
+   /** Size of every chunk but the last, null for payloads written with the default chunk size. */
+   public Integer getChunkSize() {
+      return chunkSize;
+   }
+
+   public Long getSize() {
+      return size;
+   }
+
+   public String getEtag() {
+      return etag;
+   }
+
+   public Date getCreationDate() {
+      return toDate(creationDate);
+   }
+
+   public Date getLastModified() {
+      return toDate(lastModified);
+   }
+
+   public Map<String, String> getUserMetadata() {
+      return userMetadata;
+   }
+
+   public String getCacheControl() {
+      return cacheControl;
+   }
+
+   public String getContentType() {
+      return contentType;
+   }
+
+   public Long getContentLength() {
+      return contentLength;
+   }
+
+   public HashCode getContentMD5() {
+      return contentMD5;
+   }
+
+   public String getContentDisposition() {
+      return contentDisposition;
+   }
+
+   public String getContentLanguage() {
+      return contentLanguage;
+   }
+
+   public String getContentEncoding() {
+      return contentEncoding;
+   }
+
+   public Date getExpires() {
+      return toDate(expires);
+   }
+
+   private static Long toMillis(Date date) {
+      return date == null ? null : date.getTime();
+   }
+
+   private static Date toDate(Long millis) {
+      return millis == null ? null : new Date(millis);
+   }
+
+}
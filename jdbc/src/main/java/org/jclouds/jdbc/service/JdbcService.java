@@ -16,13 +16,20 @@
  */
 package org.jclouds.jdbc.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.google.inject.persist.Transactional;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
@@ -43,20 +50,63 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.io.BaseEncoding.base16;
 
 @Singleton
 public class JdbcService {
 
    private static final String DIRECTORY_MD5 = Hashing.md5().hashBytes(new byte[0]).toString();
+   private static final int GENERATION_STRIPES = 1024;
 
    private final ContainerRepository containerRepository;
    private final BlobRepository blobRepository;
    private final ChunkRepository chunkRepository;
    private final BlobToBlobEntity blobToBlobEntity;
 
+   @Inject(optional = true)
+   @Named(JdbcConstants.PROPERTY_CHUNK_SIZE)
+   private int chunkSize = JdbcConstants.DEFAULT_CHUNK_SIZE;
+
+   @Inject(optional = true)
+   @Named(JdbcConstants.PROPERTY_DEDUPLICATE_CHUNKS)
+   private boolean deduplicateChunks = false;
+
+   @Inject(optional = true)
+   @Named(JdbcConstants.PROPERTY_WRITE_BATCH_CHUNKS)
+   private int writeBatchChunks = 8;
+
+   /**
+    * Containers by name and immutable blob snapshots by container and key, sparing the lookup every operation starts
+    * with. Entries are evicted by the writes changing them, inside their transaction and again by callers once it has
+    * committed. Every eviction bumps the generation of the key so that a load which raced the write does not cache
+    * the state it read before the commit.
+    */
+   private Cache<String, ContainerEntity> containers = newCache(60, 10000);
+   private Cache<Map.Entry<String, String>, BlobSnapshot> blobs = newCache(60, 10000);
+
+   /** Generations are striped by key hash, which bounds their memory at the cost of spurious cache misses. */
+   private final AtomicLongArray containerGenerations = new AtomicLongArray(GENERATION_STRIPES);
+   private final AtomicLongArray blobGenerations = new AtomicLongArray(GENERATION_STRIPES);
+
+   @Inject(optional = true)
+   void setMetadataCache(@Named(JdbcConstants.PROPERTY_METADATA_CACHE_TTL) long ttlSeconds,
+         @Named(JdbcConstants.PROPERTY_METADATA_CACHE_SIZE) long size) {
+      containers = newCache(ttlSeconds, size);
+      blobs = newCache(ttlSeconds, size);
+   }
+
+   private static <K, V> Cache<K, V> newCache(long ttlSeconds, long size) {
+      return CacheBuilder.newBuilder().expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).maximumSize(size).build();
+   }
+
    @Inject
    JdbcService(ContainerRepository containerRepository, BlobRepository blobRepository, ChunkRepository chunkRepository,
          BlobToBlobEntity blobToBlobEntity) {
@@ -83,16 +133,30 @@ public class JdbcService {
 
    @Transactional
    public ContainerEntity findContainerByName(String containerName) {
-      return containerRepository.findContainerByName(containerName);
+      ContainerEntity containerEntity = containers.getIfPresent(containerName);
+      if (containerEntity == null) {
+         long generation = containerGeneration(containerName);
+         containerEntity = containerRepository.findContainerByName(containerName);
+         if (containerEntity != null && generation == containerGeneration(containerName)) {
+            containers.put(containerName, containerEntity);
+            // An eviction between the check and the put may have missed the entry
+            if (generation != containerGeneration(containerName)) {
+               containers.invalidate(containerName);
+            }
+         }
+      }
+      return containerEntity;
    }
 
    @Transactional
    public void deleteContainerByName(String containerName) {
+      evictContainer(containerName);
       containerRepository.deleteContainerByName(containerName);
    }
 
    @Transactional
    public void setContainerAccessByName(String containerName, ContainerAccess access) {
+      evictContainer(containerName);
       ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
       containerEntity.setContainerAccess(access);
       containerRepository.save(containerEntity);
@@ -100,17 +164,25 @@ public class JdbcService {
 
    @Transactional
    public boolean blobExists(String containerName, String key) {
-      return findBlobById(containerName, key) != null;
+      ContainerEntity containerEntity = findContainerByName(containerName);
+      return containerEntity != null && blobRepository.blobExists(containerEntity, key);
+   }
+
+   @Transactional
+   public BlobAccess findBlobAccess(String containerName, String key) {
+      ContainerEntity containerEntity = findContainerByName(containerName);
+      return containerEntity == null ? null : blobRepository.findBlobAccess(containerEntity, key);
    }
 
    @Transactional(rollbackOn = IOException.class)
    public BlobEntity createOrModifyBlob(String containerName, Blob blob, BlobAccess blobAccess) throws IOException {
       List<Long> chunks;
       HashingInputStream his = new HashingInputStream(Hashing.md5(), blob.getPayload().openStream());
+      CountingInputStream cis = new CountingInputStream(his);
       try {
-         chunks = storeData(his);
+         chunks = storeData(cis);
       } finally {
-         Closeables2.closeQuietly(his);
+         Closeables2.closeQuietly(cis);
       }
       HashCode actualHashCode = his.hash();
       HashCode expectedHashCode = blob.getPayload().getContentMetadata().getContentMD5AsHashCode();
@@ -121,13 +193,21 @@ public class JdbcService {
 
       String key = blob.getMetadata().getName();
       Date creationDate = null;
-      BlobEntity oldBlobEntity = findBlobById(containerName, key);
+      List<Long> oldChunks = ImmutableList.of();
+      evictBlob(containerName, key);
+      ContainerEntity containerEntity = findContainerByName(containerName);
+      BlobEntity oldBlobEntity = blobRepository.find(new BlobEntityPK(containerEntity.getId(), key));
       if (oldBlobEntity != null) {
          creationDate = oldBlobEntity.getCreationDate();
+         // Copied before merging the new blob overwrites the managed entity
+         oldChunks = ImmutableList.copyOf(oldBlobEntity.getPayload().getChunks());
       }
       BlobEntity blobEntity = blobToBlobEntity.apply(blob);
       blobEntity.getPayload().setChunks(chunks);
-      blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
+      blobEntity.getPayload().setChunkSize(chunkSize);
+      blobEntity.getPayload().setContentLength(cis.getCount());
+      blobEntity.setSize(cis.getCount());
+      blobEntity.setContainerEntity(containerRepository.getReference(containerEntity.getId()));
       blobEntity.setKey(key);
       blobEntity.setBlobAccess(blobAccess);
       blobEntity.setCreationDate(creationDate);
@@ -136,6 +216,7 @@ public class JdbcService {
       blobEntity.getPayload().setContentMD5(actualHashCode.asBytes());
 
       BlobEntity result = blobRepository.save(blobEntity);
+      deleteChunks(oldChunks);
       return result;
    }
 
@@ -146,7 +227,8 @@ public class JdbcService {
             .directory(true)
             .payload(PayloadEntity.builder().contentType("application/directory").build())
             .build();
-      blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
+      evictBlob(containerName, blob.getMetadata().getName());
+      blobEntity.setContainerEntity(containerRepository.getReference(findContainerByName(containerName).getId()));
       blobEntity.setKey(blob.getMetadata().getName());
       blobEntity.setBlobAccess(blobAccess);
       blobEntity.setEtag(DIRECTORY_MD5);
@@ -163,10 +245,64 @@ public class JdbcService {
       return createOrModifyBlob(containerName, blob, null);
    }
 
+   /**
+    * Finds a blob, possibly returning a cached snapshot.
+    */
    @Transactional
-   public BlobEntity findBlobById(String containerName, String key) {
-      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
-      return containerEntity == null ? null : blobRepository.find(new BlobEntityPK(containerEntity.getId(), key));
+   public BlobSnapshot findBlobById(String containerName, String key) {
+      Map.Entry<String, String> id = Maps.immutableEntry(containerName, key);
+      BlobSnapshot blob = blobs.getIfPresent(id);
+      if (blob == null) {
+         long generation = blobGeneration(id);
+         BlobEntity blobEntity = findManagedBlob(containerName, key);
+         if (blobEntity == null) {
+            return null;
+         }
+         blob = new BlobSnapshot(blobEntity);
+         if (generation == blobGeneration(id)) {
+            blobs.put(id, blob);
+            // An eviction between the check and the put may have missed the entry
+            if (generation != blobGeneration(id)) {
+               blobs.invalidate(id);
+            }
+         }
+      }
+      return blob;
+   }
+
+   /**
+    * Evicts the cached container and all cached blobs in it.
+    */
+   public void evictContainer(String containerName) {
+      containerGenerations.incrementAndGet(stripe(containerName));
+      containers.invalidate(containerName);
+      for (Iterator<Map.Entry<String, String>> it = blobs.asMap().keySet().iterator(); it.hasNext();) {
+         if (it.next().getKey().equals(containerName)) {
+            it.remove();
+         }
+      }
+   }
+
+   /**
+    * Evicts the cached blob.
+    */
+   public void evictBlob(String containerName, String key) {
+      Map.Entry<String, String> id = Maps.immutableEntry(containerName, key);
+      blobGenerations.incrementAndGet(stripe(id));
+      blobs.invalidate(id);
+   }
+
+   private long containerGeneration(String containerName) {
+      return containerGenerations.get(stripe(containerName));
+   }
+
+   /** Also changes when the container is evicted, which evicts all of its blobs. */
+   private long blobGeneration(Map.Entry<String, String> id) {
+      return blobGenerations.get(stripe(id)) + containerGeneration(id.getKey());
+   }
+
+   private static int stripe(Object key) {
+      return (key.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
    }
 
    @Transactional
@@ -174,54 +310,62 @@ public class JdbcService {
       return chunkRepository.find(id);
    }
 
+   @Transactional
+   public List<Long> findChunkIdsByPayload(Long payloadId) {
+      return chunkRepository.findChunkIdsByPayload(payloadId);
+   }
+
    @Transactional
    public List<BlobEntity> findBlobsByContainer(String containerName) {
-      return blobRepository.findBlobsByContainer(containerRepository.findContainerByName(containerName));
+      return blobRepository.findBlobsByContainer(findContainerByName(containerName));
    }
 
    @Transactional
-   public List<BlobEntity> findBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      ImmutableList.Builder<BlobEntity> result = ImmutableList.builder();
-      List<BlobEntity> blobEntities = blobRepository
-            .findBlobsByDirectory(containerRepository.findContainerByName(containerName), directoryName);
-      result.addAll(blobEntities);
-      if (recursive) {
-         for (BlobEntity blobEntity : blobEntities) {
-            if (blobEntity.isDirectory()) {
-               result.addAll(findBlobsByDirectory(containerName, blobEntity.getKey(), true));
-            }
-         }
-      }
-      return result.build();
+   public List<String> findBlobKeysByContainer(String containerName, String marker, int maxResults) {
+      ContainerEntity containerEntity = findContainerByName(containerName);
+      return containerEntity == null ? ImmutableList.<String>of()
+            : blobRepository.findBlobKeysByContainer(containerEntity, marker, maxResults);
+   }
+
+   @Transactional
+   public long countBlobs(String containerName, String directoryName, boolean recursive) {
+      ContainerEntity containerEntity = findContainerByName(containerName);
+      return containerEntity == null ? 0 : blobRepository.countBlobs(containerEntity, directoryName, recursive);
    }
 
    @Transactional
    public void deleteBlobsByContainer(String containerName) {
-      List<BlobEntity> blobs = findBlobsByContainer(containerName);
-      for (BlobEntity blob : blobs) {
-         deleteBlob(containerName, blob.getKey());
+      ContainerEntity containerEntity = findContainerByName(containerName);
+      if (containerEntity == null) {
+         return;
+      }
+      evictContainer(containerName);
+      chunkRepository.release(blobRepository.findChunkIdsByContainer(containerEntity));
+      for (BlobEntity blob : blobRepository.findBlobsByContainer(containerEntity)) {
+         blobRepository.delete(blob);
       }
    }
 
    @Transactional
    public void deleteBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      List<BlobEntity> blobs = findBlobsByDirectory(containerName, directoryName, false);
-      for (BlobEntity blob : blobs) {
-         if (!blob.isDirectory()) {
-            deleteBlob(containerName, blob.getKey());
-         }
-         else {
-            if (recursive) {
-               deleteBlobsByDirectory(containerName, blob.getKey(), true);
-               deleteBlob(containerName, blob.getKey());
-            }
+      ContainerEntity containerEntity = findContainerByName(containerName);
+      if (containerEntity == null) {
+         return;
+      }
+      evictContainer(containerName);
+      // Directory blobs have no chunks so releasing every chunk below the directory is right either way
+      chunkRepository.release(blobRepository.findChunkIdsByDirectory(containerEntity, directoryName));
+      for (BlobEntity blob : blobRepository.findBlobsByDirectory(containerEntity, directoryName)) {
+         if (recursive || !blob.isDirectory()) {
+            blobRepository.delete(blob);
          }
       }
    }
 
    @Transactional
    public void deleteBlob(String containerName, String key) {
-      BlobEntity blobEntity = findBlobById(containerName, key);
+      evictBlob(containerName, key);
+      BlobEntity blobEntity = findManagedBlob(containerName, key);
       if (blobEntity != null) {
          deleteChunks(blobEntity.getPayload().getChunks());
          blobRepository.delete(blobEntity);
@@ -230,30 +374,63 @@ public class JdbcService {
 
    @Transactional
    public void setBlobAccessById(String containerName, String key, BlobAccess access) {
-      BlobEntity blobEntity = findBlobById(containerName, key);
+      evictBlob(containerName, key);
+      BlobEntity blobEntity = findManagedBlob(containerName, key);
       blobEntity.setBlobAccess(access);
       blobRepository.save(blobEntity);
    }
 
+   @Transactional
+   private BlobEntity findManagedBlob(String containerName, String key) {
+      ContainerEntity containerEntity = findContainerByName(containerName);
+      return containerEntity == null ? null : blobRepository.find(new BlobEntityPK(containerEntity.getId(), key));
+   }
+
    @Transactional
    private void deleteChunks(List<Long> chunkIds) {
-      for (Long chunkId : chunkIds) {
-         chunkRepository.delete(chunkRepository.find(chunkId));
-      }
+      // Chunk ids are unique per blob, duplicates come from https://hibernate.atlassian.net/browse/HHH-6783
+      chunkRepository.release(ImmutableSet.copyOf(chunkIds));
    }
 
    @Transactional(rollbackOn = IOException.class)
    private List<Long> storeData(InputStream data) throws IOException {
+      checkState(chunkSize > 0 && chunkSize <= JdbcConstants.MAX_CHUNK_SIZE, "chunk size must be between 1 and %s",
+            JdbcConstants.MAX_CHUNK_SIZE);
       ImmutableList.Builder<Long> chunks = ImmutableList.builder();
+      // Readers drop repeated chunk ids, see JdbcInputStream, so a shared chunk is used at most once per blob
+      Set<Long> usedChunks = Sets.newHashSet();
+      byte[][] buffers = new byte[Math.max(1, writeBatchChunks)][];
+      int pending = 0;
       while (true) {
-         byte[] buffer = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
-         int bytes = ByteStreams.read(data, buffer, 0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+         if (buffers[pending] == null) {
+            buffers[pending] = new byte[chunkSize];
+         }
+         byte[] buffer = buffers[pending];
+         int bytes = ByteStreams.read(data, buffer, 0, buffer.length);
          if (bytes == 0) {
             break;
-         } else if (bytes != buffer.length) {
-            buffer = Arrays.copyOf(buffer, bytes);
          }
-         chunks.add(chunkRepository.create(new ChunkEntity(buffer, bytes)).getId());
+
+         String hash = null;
+         if (deduplicateChunks) {
+            hash = Hashing.sha256().hashBytes(buffer, 0, bytes).toString();
+            Long existing = chunkRepository.findChunkIdByHash(hash, bytes);
+            if (existing != null && !usedChunks.contains(existing) && chunkRepository.acquire(existing)) {
+               usedChunks.add(existing);
+               chunks.add(existing);
+               continue;
+            }
+         }
+
+         byte[] chunkData = bytes == buffer.length ? buffer : Arrays.copyOf(buffer, bytes);
+         Long id = chunkRepository.create(new ChunkEntity(chunkData, bytes, hash)).getId();
+         usedChunks.add(id);
+         chunks.add(id);
+         if (++pending == buffers.length) {
+            // Write the batch and detach its chunks so that their buffers can be reused
+            chunkRepository.flushAndClear();
+            pending = 0;
+         }
       }
       return chunks.build();
    }
@@ -19,6 +19,7 @@ package org.jclouds.jdbc.strategy;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -40,13 +41,14 @@ import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
 import org.jclouds.io.ContentMetadata;
-import org.jclouds.jdbc.conversion.BlobEntityToBlob;
-import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.conversion.BlobSnapshotToBlob;
 import org.jclouds.jdbc.entity.ContainerEntity;
 import org.jclouds.jdbc.predicates.validators.JdbcBlobKeyValidator;
 import org.jclouds.jdbc.predicates.validators.JdbcContainerNameValidator;
+import org.jclouds.jdbc.service.BlobSnapshot;
 import org.jclouds.jdbc.service.JdbcService;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 
 /**
@@ -56,23 +58,25 @@ import com.google.common.collect.ImmutableList;
  */
 public class JdbcStorageStrategy implements LocalStorageStrategy {
 
+   private static final int KEY_PAGE_SIZE = 1000;
+
    private final Provider<BlobBuilder> blobBuilders;
    private final JdbcService jdbcService;
    private final JdbcContainerNameValidator jdbcContainerNameValidator;
    private final JdbcBlobKeyValidator jdbcBlobKeyValidator;
-   private final BlobEntityToBlob blobEntityToBlob;
+   private final BlobSnapshotToBlob blobSnapshotToBlob;
    private final Location mockLocation;
 
    @Inject
    JdbcStorageStrategy(Provider<BlobBuilder> blobBuilders,
          JdbcContainerNameValidator jdbcContainerNameValidator, JdbcBlobKeyValidator jdbcBlobKeyValidator,
-         JdbcService jdbcService, BlobEntityToBlob blobEntityToBlob)
+         JdbcService jdbcService, BlobSnapshotToBlob blobSnapshotToBlob)
          throws ClassNotFoundException, IllegalAccessException, InstantiationException, SQLException {
       this.jdbcService = jdbcService;
       this.blobBuilders = blobBuilders;
       this.jdbcContainerNameValidator = jdbcContainerNameValidator;
       this.jdbcBlobKeyValidator = jdbcBlobKeyValidator;
-      this.blobEntityToBlob = blobEntityToBlob;
+      this.blobSnapshotToBlob = blobSnapshotToBlob;
       this.mockLocation = new LocationBuilder()
             .id("jdbc")
             .scope(LocationScope.PROVIDER)
@@ -153,6 +157,8 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void setContainerAccess(String container, ContainerAccess containerAccess) {
       jdbcService.setContainerAccessByName(container, containerAccess);
+      // Evicted again after commit, a concurrent read may have cached the previous state in between
+      jdbcService.evictContainer(container);
    }
 
    /**
@@ -165,6 +171,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       jdbcContainerNameValidator.validate(container);
       jdbcService.deleteBlobsByContainer(container);
       jdbcService.deleteContainerByName(container);
+      jdbcService.evictContainer(container);
    }
 
    /**
@@ -175,6 +182,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void clearContainer(String container) {
       jdbcService.deleteBlobsByContainer(container);
+      jdbcService.evictContainer(container);
    }
 
    /**
@@ -187,6 +195,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    public void clearContainer(String container, ListContainerOptions options) {
       if (options.getDir() != null) {
          jdbcService.deleteBlobsByDirectory(container, options.getDir(), true);
+         jdbcService.evictContainer(container);
       }
       else {
          clearContainer(container);
@@ -228,19 +237,40 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    }
 
    /**
-    * Lists all the blob keys in a container
+    * Lists all the blob keys in a container, in order. Keys are fetched lazily a page at a time.
     *
     * @param container the name of the container
     * @return the blob keys inside the container
     */
    @Override
-   public Iterable<String> getBlobKeysInsideContainer(String container) throws IOException {
-      List<BlobEntity> blobEntities = jdbcService.findBlobsByContainer(container);
-      ImmutableList.Builder<String> result = ImmutableList.builder();
-      for (BlobEntity blobEntity : blobEntities) {
-         result.add(blobEntity.getKey());
-      }
-      return result.build();
+   public Iterable<String> getBlobKeysInsideContainer(final String container) throws IOException {
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return new AbstractIterator<String>() {
+               private Iterator<String> page = ImmutableList.<String>of().iterator();
+               private String marker;
+               private boolean lastPage;
+
+               @Override
+               protected String computeNext() {
+                  if (!page.hasNext()) {
+                     if (lastPage) {
+                        return endOfData();
+                     }
+                     List<String> keys = jdbcService.findBlobKeysByContainer(container, marker, KEY_PAGE_SIZE);
+                     lastPage = keys.size() < KEY_PAGE_SIZE;
+                     if (keys.isEmpty()) {
+                        return endOfData();
+                     }
+                     marker = keys.get(keys.size() - 1);
+                     page = keys.iterator();
+                  }
+                  return page.next();
+               }
+            };
+         }
+      };
    }
 
    /**
@@ -252,7 +282,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public Blob getBlob(String container, String key) {
-      return blobEntityToBlob.apply(jdbcService.findBlobById(container, key));
+      return blobSnapshotToBlob.apply(jdbcService.findBlobById(container, key));
    }
 
    /**
@@ -267,7 +297,9 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       String key = blob.getMetadata().getName();
       jdbcContainerNameValidator.validate(container);
       jdbcBlobKeyValidator.validate(key);
-      return jdbcService.createOrModifyBlob(container, blob).getEtag();
+      String etag = jdbcService.createOrModifyBlob(container, blob).getEtag();
+      jdbcService.evictBlob(container, key);
+      return etag;
    }
 
    /**
@@ -279,6 +311,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void removeBlob(String container, String key) {
       jdbcService.deleteBlob(container, key);
+      jdbcService.evictBlob(container, key);
    }
 
    /**
@@ -290,7 +323,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public BlobAccess getBlobAccess(String container, String key) {
-      return jdbcService.findBlobById(container, key).getBlobAccess();
+      return jdbcService.findBlobAccess(container, key);
    }
 
    /**
@@ -303,6 +336,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void setBlobAccess(String container, String key, BlobAccess blobAccess) {
       jdbcService.setBlobAccessById(container, key, blobAccess);
+      jdbcService.evictBlob(container, key);
    }
 
    /**
@@ -333,8 +367,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @return the number of blobs in the container
     */
    public long countBlobs(String container, ListContainerOptions options) {
-      return options.getDir() == null ? jdbcService.findBlobsByContainer(container).size()
-             : jdbcService.findBlobsByDirectory(container, options.getDir(), options.isRecursive()).size();
+      return jdbcService.countBlobs(container, options.getDir(), options.isRecursive());
    }
 
    /**
@@ -365,7 +398,9 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
          throw new IllegalArgumentException(
                "Directory blob cannot have content: " + blobKey);
       }
-      return jdbcService.createDirectoryBlob(container, blob).getEtag();
+      String etag = jdbcService.createDirectoryBlob(container, blob).getEtag();
+      jdbcService.evictBlob(container, blobKey);
+      return etag;
    }
 
    /**
@@ -387,9 +422,10 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @param directory the name of the directory to delete
     */
    public void deleteDirectory(String container, String directory) {
-      BlobEntity entity = jdbcService.findBlobById(container, directory);
-      if (entity != null && entity.isDirectory()) {
+      BlobSnapshot blob = jdbcService.findBlobById(container, directory);
+      if (blob != null && blob.isDirectory()) {
          jdbcService.deleteBlob(container, directory);
+         jdbcService.evictBlob(container, directory);
       }
    }
 
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import org.jclouds.jdbc.service.JdbcService;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.math.LongMath;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.RoundingMode;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A repeatable source over the chunks of a blob. Every chunk but the last holds exactly {@code chunkSize} bytes, so
+ * slices only fetch the chunks overlapping the requested range instead of reading and discarding the preceding ones.
+ * When created from a payload id the chunk ids are loaded on first use, and reading fails if the payload has been
+ * replaced or removed since.
+ */
+public class JdbcByteSource extends ByteSource {
+
+   private final JdbcService jdbcService;
+   private final Supplier<List<Long>> chunks;
+   private final int chunkSize;
+   /** Number of chunks the blob consists of, or -1 if its size is unknown. */
+   private final long expectedChunks;
+   private final long offset;
+   private final long length;
+   private final ListeningExecutorService executor;
+   private final int readAheadChunks;
+
+   /**
+    * @param size the size of the blob, or null if unknown
+    */
+   public JdbcByteSource(JdbcService jdbcService, List<Long> chunks, int chunkSize, Long size,
+         ListeningExecutorService executor, int readAheadChunks) {
+      // Need to remove duplicates due to https://hibernate.atlassian.net/browse/HHH-6783
+      this(jdbcService, Suppliers.<List<Long>>ofInstance(
+            ImmutableList.copyOf(new LinkedHashSet<Long>(checkNotNull(chunks, "chunks")))), chunkSize,
+            expectedChunks(size, chunkSize), 0, size == null ? Long.MAX_VALUE : size, executor, readAheadChunks);
+   }
+
+   /**
+    * @param payloadId the id of the payload whose chunks to read
+    * @param size the size of the blob, or null if unknown
+    */
+   public JdbcByteSource(final JdbcService jdbcService, final Long payloadId, int chunkSize, Long size,
+         ListeningExecutorService executor, int readAheadChunks) {
+      this(jdbcService, Suppliers.memoize(new Supplier<List<Long>>() {
+         @Override
+         public List<Long> get() {
+            return ImmutableList.copyOf(jdbcService.findChunkIdsByPayload(payloadId));
+         }
+      }), chunkSize, expectedChunks(size, chunkSize), 0, size == null ? Long.MAX_VALUE : size, executor,
+            readAheadChunks);
+   }
+
+   private JdbcByteSource(JdbcService jdbcService, Supplier<List<Long>> chunks, int chunkSize, long expectedChunks,
+         long offset, long length, ListeningExecutorService executor, int readAheadChunks) {
+      checkArgument(chunkSize > 0, "chunkSize must be positive");
+      this.jdbcService = checkNotNull(jdbcService, "jdbcService");
+      this.chunks = chunks;
+      this.chunkSize = chunkSize;
+      this.expectedChunks = expectedChunks;
+      this.offset = offset;
+      this.length = length;
+      this.executor = checkNotNull(executor, "executor");
+      this.readAheadChunks = readAheadChunks;
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      List<Long> ids = chunks.get();
+      if (ids.size() < expectedChunks) {
+         throw new IOException("Expected " + expectedChunks + " chunks but found " + ids.size()
+               + ", the blob has been replaced or removed");
+      }
+      int firstChunk = (int) Math.min(offset / chunkSize, ids.size());
+      int lastChunk = length == Long.MAX_VALUE ? ids.size()
+            : (int) Math.min((offset + length - 1) / chunkSize + 1, ids.size());
+      InputStream in = new JdbcInputStream(jdbcService, ids.subList(firstChunk, lastChunk), executor,
+            readAheadChunks);
+      ByteStreams.skipFully(in, offset - (long) firstChunk * chunkSize);
+      return length == Long.MAX_VALUE ? in : ByteStreams.limit(in, length);
+   }
+
+   @Override
+   public long size() throws IOException {
+      return length == Long.MAX_VALUE ? super.size() : length;
+   }
+
+   @Override
+   public ByteSource slice(long off, long len) {
+      checkArgument(off >= 0, "offset (%s) may not be negative", off);
+      checkArgument(len >= 0, "length (%s) may not be negative", len);
+      long skipped = Math.min(off, length);
+      long start = offset + skipped;
+      long end = start + Math.min(len, length - skipped);
+      if (end < start) {
+         end = Long.MAX_VALUE;
+      }
+      if (end == start) {
+         return ByteSource.empty();
+      }
+      // Chunk ids are only resolved when the slice is opened, so that a missing payload fails the read
+      return new JdbcByteSource(jdbcService, chunks, chunkSize, expectedChunks, start,
+            end == Long.MAX_VALUE ? Long.MAX_VALUE : end - start, executor, readAheadChunks);
+   }
+
+   private static long expectedChunks(Long size, int chunkSize) {
+      checkArgument(chunkSize > 0, "chunkSize must be positive");
+      return size == null ? -1 : LongMath.divide(size, chunkSize, RoundingMode.CEILING);
+   }
+
+}
@@ -19,26 +19,52 @@ package org.jclouds.jdbc.util;
 import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.service.JdbcService;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Streams the content of a blob chunk by chunk. When read-ahead is enabled the next chunks are fetched on the given
+ * executor while the current one is consumed.
+ */
 public class JdbcInputStream extends InputStream {
 
-   private JdbcService jdbcService;
+   private final JdbcService jdbcService;
+   private final ListeningExecutorService executor;
+   private final int readAheadChunks;
 
    private final List<Long> chunks;
+   private final Deque<ListenableFuture<ChunkEntity>> pendingChunks = new ArrayDeque<ListenableFuture<ChunkEntity>>();
+   private int nextChunk;
    private ChunkEntity currentChunk;
    private int bytesRead;
 
    public JdbcInputStream(JdbcService jdbcService, List<Long> chunks) {
+      this(jdbcService, chunks, MoreExecutors.sameThreadExecutor(), 0);
+   }
+
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, ListeningExecutorService executor,
+         int readAheadChunks) {
       this.jdbcService = checkNotNull(jdbcService, "jdbcService");
       // Need to remove duplicates due to https://hibernate.atlassian.net/browse/HHH-6783
       this.chunks = new ArrayList<Long>(new LinkedHashSet<Long>(checkNotNull(chunks, "chunks")));
+      this.executor = checkNotNull(executor, "executor");
+      checkArgument(readAheadChunks >= 0, "readAheadChunks must be non-negative");
+      this.readAheadChunks = readAheadChunks;
       try {
          readNextChunk();
       } catch (IOException e) {
@@ -59,19 +85,120 @@ public class JdbcInputStream extends InputStream {
       return b;
    }
 
+   @Override
+   public synchronized int read(byte[] b, int off, int len) throws IOException {
+      checkNotNull(b, "b");
+      if (off < 0 || len < 0 || len > b.length - off) {
+         throw new IndexOutOfBoundsException();
+      }
+      if (len == 0) {
+         return 0;
+      }
+      if (hasFinished()) {
+         return -1;
+      }
+      int total = 0;
+      while (total < len && !hasFinished()) {
+         int n = Math.min(len - total, currentChunk.getSize() - bytesRead);
+         System.arraycopy(currentChunk.getData(), bytesRead, b, off + total, n);
+         total += n;
+         bytesRead += n;
+         if (bytesRead >= currentChunk.getSize()) {
+            readNextChunk();
+         }
+      }
+      return total;
+   }
+
+   @Override
+   public synchronized long skip(long n) throws IOException {
+      long skipped = 0;
+      while (skipped < n && !hasFinished()) {
+         int step = (int) Math.min(n - skipped, currentChunk.getSize() - bytesRead);
+         skipped += step;
+         bytesRead += step;
+         if (bytesRead >= currentChunk.getSize()) {
+            readNextChunk();
+         }
+      }
+      return skipped;
+   }
+
+   @Override
+   public synchronized int available() {
+      return hasFinished() ? 0 : currentChunk.getSize() - bytesRead;
+   }
+
+   /**
+    * Writes the remaining content to the given stream directly from the chunk buffers.
+    *
+    * @param out the stream to write to
+    * @return the number of bytes written
+    */
+   public synchronized long transferTo(OutputStream out) throws IOException {
+      checkNotNull(out, "out");
+      long transferred = 0;
+      while (!hasFinished()) {
+         int n = currentChunk.getSize() - bytesRead;
+         out.write(currentChunk.getData(), bytesRead, n);
+         transferred += n;
+         bytesRead += n;
+         readNextChunk();
+      }
+      return transferred;
+   }
+
+   @Override
+   public synchronized void close() throws IOException {
+      for (ListenableFuture<ChunkEntity> future : pendingChunks) {
+         future.cancel(false);
+      }
+      pendingChunks.clear();
+      nextChunk = chunks.size();
+      currentChunk = null;
+   }
+
    private boolean hasFinished() {
-      return currentChunk == null || (chunks.size() == 0 && bytesRead >= currentChunk.getSize());
+      return currentChunk == null || (nextChunk >= chunks.size() && pendingChunks.isEmpty()
+            && bytesRead >= currentChunk.getSize());
    }
 
    private void readNextChunk() throws IOException {
-      if (chunks.size() > 0) {
-         this.currentChunk = jdbcService.findChunkById(chunks.get(0));
-         if (currentChunk == null) {
-            throw new IOException("Could not find chunk.");
+      if (readAheadChunks == 0) {
+         if (nextChunk < chunks.size()) {
+            setCurrentChunk(jdbcService.findChunkById(chunks.get(nextChunk++)));
          }
-         chunks.remove(0);
-         this.bytesRead = 0;
+         return;
+      }
+
+      while (pendingChunks.size() <= readAheadChunks && nextChunk < chunks.size()) {
+         final Long id = chunks.get(nextChunk++);
+         pendingChunks.add(executor.submit(new Callable<ChunkEntity>() {
+            @Override
+            public ChunkEntity call() {
+               return jdbcService.findChunkById(id);
+            }
+         }));
+      }
+      ListenableFuture<ChunkEntity> future = pendingChunks.poll();
+      if (future != null) {
+         try {
+            setCurrentChunk(future.get());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+         } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+         }
+      }
+   }
+
+   private void setCurrentChunk(ChunkEntity chunk) throws IOException {
+      if (chunk == null) {
+         throw new IOException("Could not find chunk.");
       }
+      this.currentChunk = chunk;
+      this.bytesRead = 0;
    }
 
 }
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.JdbcByteSource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+@Test(groups = "unit", testName = "JdbcByteSourceTest")
+public class JdbcByteSourceTest {
+
+   private static final ImmutableList<Long> CHUNKS = ImmutableList.of(1L, 2L, 3L);
+
+   private JdbcService mockJdbcService;
+
+   @BeforeMethod
+   public void setUp() {
+      mockJdbcService = createMock(JdbcService.class);
+   }
+
+   @Test
+   public void testSliceFetchesOnlyOverlappingChunks() throws IOException {
+      expect(mockJdbcService.findChunkById(2L)).andReturn(chunk("def"));
+      expect(mockJdbcService.findChunkById(3L)).andReturn(chunk("gh"));
+      replay(mockJdbcService);
+
+      ByteSource slice = byteSource(8L).slice(4, 3);
+      assertThat(slice.size()).isEqualTo(3);
+      assertThat(slice.asCharSource(Charsets.UTF_8).read()).isEqualTo("efg");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testTailSlice() throws IOException {
+      expect(mockJdbcService.findChunkById(3L)).andReturn(chunk("gh"));
+      replay(mockJdbcService);
+
+      assertThat(byteSource(8L).slice(7, 100).read()).isEqualTo("h".getBytes("UTF-8"));
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testChunkIdsLoadedOnFirstRead() throws IOException {
+      expect(mockJdbcService.findChunkIdsByPayload(7L)).andReturn(CHUNKS);
+      expect(mockJdbcService.findChunkById(1L)).andReturn(chunk("abc"));
+      replay(mockJdbcService);
+
+      ByteSource byteSource = new JdbcByteSource(mockJdbcService, 7L, 3, 8L, MoreExecutors.sameThreadExecutor(), 0);
+      assertThat(byteSource.size()).isEqualTo(8);
+      assertThat(byteSource.slice(1, 2).read()).isEqualTo("bc".getBytes("UTF-8"));
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testRemovedPayloadFailsRead() throws IOException {
+      expect(mockJdbcService.findChunkIdsByPayload(7L)).andReturn(ImmutableList.<Long> of());
+      replay(mockJdbcService);
+
+      ByteSource byteSource = new JdbcByteSource(mockJdbcService, 7L, 3, 8L, MoreExecutors.sameThreadExecutor(), 0);
+      try {
+         byteSource.read();
+         failBecauseExceptionWasNotThrown(IOException.class);
+      } catch (IOException expected) {
+         // the payload was removed after its metadata was read
+      }
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testTruncatedChunkListFailsSliceRead() throws IOException {
+      expect(mockJdbcService.findChunkIdsByPayload(7L)).andReturn(ImmutableList.of(1L, 2L));
+      replay(mockJdbcService);
+
+      ByteSource slice = new JdbcByteSource(mockJdbcService, 7L, 3, 8L, MoreExecutors.sameThreadExecutor(), 0)
+            .slice(1, 2);
+      try {
+         slice.read();
+         failBecauseExceptionWasNotThrown(IOException.class);
+      } catch (IOException expected) {
+         // fewer chunks than the blob size requires
+      }
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testEmptySlice() throws IOException {
+      replay(mockJdbcService);
+
+      assertThat(byteSource(8L).slice(8, 10).isEmpty()).isTrue();
+      verify(mockJdbcService);
+   }
+
+   private JdbcByteSource byteSource(Long size) {
+      return new JdbcByteSource(mockJdbcService, CHUNKS, 3, size, MoreExecutors.sameThreadExecutor(), 0);
+   }
+
+   private static ChunkEntity chunk(String data) throws IOException {
+      return new ChunkEntity(data.getBytes("UTF-8"), data.length());
+   }
+
+}
@@ -17,16 +17,21 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.service.JdbcService;
 import org.jclouds.jdbc.util.JdbcInputStream;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
 
 @Test(groups = "unit", testName = "JdbcInputStreamTest")
 public class JdbcInputStreamTest {
@@ -56,4 +61,47 @@ public class JdbcInputStreamTest {
       assertThat(jdbcInputStream.read()).isEqualTo(-1);
    }
 
+   @Test
+   public void testBulkReadAcrossChunks() throws IOException {
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, twoChunks());
+      byte[] buffer = new byte[10];
+      assertThat(jdbcInputStream.read(buffer, 1, 9)).isEqualTo(5);
+      assertThat(new String(buffer, 1, 5, "UTF-8")).isEqualTo("abcde");
+      assertThat(jdbcInputStream.read(buffer, 0, 10)).isEqualTo(-1);
+   }
+
+   @Test
+   public void testSkipAndAvailable() throws IOException {
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, twoChunks());
+      assertThat(jdbcInputStream.available()).isEqualTo(3);
+      assertThat(jdbcInputStream.skip(4)).isEqualTo(4);
+      assertThat(jdbcInputStream.available()).isEqualTo(1);
+      assertThat(jdbcInputStream.read()).isEqualTo('e');
+      assertThat(jdbcInputStream.skip(1)).isEqualTo(0);
+      assertThat(jdbcInputStream.available()).isEqualTo(0);
+   }
+
+   @Test
+   public void testTransferTo() throws IOException {
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, twoChunks());
+      assertThat(jdbcInputStream.read()).isEqualTo('a');
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      assertThat(jdbcInputStream.transferTo(out)).isEqualTo(4);
+      assertThat(new String(out.toByteArray(), "UTF-8")).isEqualTo("bcde");
+   }
+
+   @Test
+   public void testReadAhead() throws IOException {
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, twoChunks(),
+            MoreExecutors.sameThreadExecutor(), 2);
+      assertThat(new String(ByteStreams.toByteArray(jdbcInputStream), "UTF-8")).isEqualTo("abcde");
+   }
+
+   private ImmutableList<Long> twoChunks() throws IOException {
+      expect(mockJdbcService.findChunkById(1L)).andReturn(new ChunkEntity("abc".getBytes("UTF-8"), 3));
+      expect(mockJdbcService.findChunkById(2L)).andReturn(new ChunkEntity("de".getBytes("UTF-8"), 2));
+      replay(mockJdbcService);
+      return ImmutableList.of(1L, 2L);
+   }
+
 }
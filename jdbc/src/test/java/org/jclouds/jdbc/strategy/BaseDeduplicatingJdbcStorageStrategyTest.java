@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.strategy;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+/**
+ * Runs the storage strategy tests with chunk deduplication enabled.
+ */
+public abstract class BaseDeduplicatingJdbcStorageStrategyTest extends BaseJdbcStorageStrategyTest {
+
+   protected BaseDeduplicatingJdbcStorageStrategyTest(String jpaModuleName) {
+      super(jpaModuleName);
+   }
+
+   @Override
+   protected Iterable<Module> modules() {
+      return ImmutableSet.<Module> builder()
+            .addAll(super.modules())
+            .add(new AbstractModule() {
+               @Override
+               protected void configure() {
+                  bindConstant().annotatedWith(Names.named(JdbcConstants.PROPERTY_DEDUPLICATE_CHUNKS)).to(true);
+               }
+            })
+            .build();
+   }
+
+   @Test
+   public void testIdenticalBlobsShareChunks() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 3 * 1024 * 1024 + 5);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content).build());
+      long chunks = countChunks();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+      assertThat(countChunks()).isEqualTo(chunks);
+   }
+
+   @Test
+   public void testReleasedChunksAreNotReused() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 3 * 1024 * 1024 + 5);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content).build());
+
+      // Simulate a concurrent release which dropped the last references but has not deleted the chunks yet
+      long released = execute("UPDATE " + ChunkEntity.class.getName() + " c SET c.refCount = 0");
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+      assertThat(execute("DELETE FROM " + ChunkEntity.class.getName() + " c WHERE c.refCount <= 0"))
+            .isEqualTo(released);
+
+      assertThat(ByteStreams.toByteArray(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getPayload()
+            .openStream())).isEqualTo(content.read());
+   }
+
+   private long countChunks() {
+      return injector.getInstance(EntityManager.class)
+            .createQuery("SELECT COUNT(c) FROM " + ChunkEntity.class.getName() + " c", Long.class)
+            .getSingleResult();
+   }
+
+   private long execute(String statement) {
+      EntityManager entityManager = injector.getInstance(EntityManager.class);
+      entityManager.getTransaction().begin();
+      int updated = entityManager.createQuery(statement).executeUpdate();
+      entityManager.getTransaction().commit();
+      entityManager.clear();
+      return updated;
+   }
+
+}
@@ -16,11 +16,15 @@
  */
 package org.jclouds.jdbc.strategy;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.persist.PersistService;
+import com.google.inject.persist.UnitOfWork;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
@@ -29,6 +33,7 @@ import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.jdbc.module.TestContextModule;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -44,13 +49,13 @@ import static org.jclouds.utils.TestUtils.randomByteSource;
 
 public abstract class BaseJdbcStorageStrategyTest {
 
-   private static final String CONTAINER_NAME = "jclouds-test-container";
-   private static final String BLOB_NAME = "jclouds-test-blob";
+   protected static final String CONTAINER_NAME = "jclouds-test-container";
+   protected static final String BLOB_NAME = "jclouds-test-blob";
 
    private final String jpaModuleName;
 
-   private JdbcStorageStrategy storageStrategy;
-   private Injector injector;
+   protected JdbcStorageStrategy storageStrategy;
+   protected Injector injector;
 
    protected BaseJdbcStorageStrategyTest(String jpaModuleName) {
       this.jpaModuleName = jpaModuleName;
@@ -58,7 +63,7 @@ public abstract class BaseJdbcStorageStrategyTest {
 
    @BeforeMethod
    protected void setUp() throws Exception {
-      injector = Guice.createInjector(ImmutableSet.<Module> of(new TestContextModule(), new JpaPersistModule(jpaModuleName)));
+      injector = Guice.createInjector(modules());
       storageStrategy = injector.getInstance(JdbcStorageStrategy.class);
    }
 
@@ -67,6 +72,10 @@ public abstract class BaseJdbcStorageStrategyTest {
       injector.getInstance(PersistService.class).stop();
    }
 
+   protected Iterable<Module> modules() {
+      return ImmutableSet.<Module> of(new TestContextModule(), new JpaPersistModule(jpaModuleName));
+   }
+
    @Test
    public void testCreateContainerInLocation() {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -167,6 +176,42 @@ public abstract class BaseJdbcStorageStrategyTest {
         }
     }
 
+   @Test
+   public void testPutBlobSpanningWriteBatches() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 10 * 1024 * 1024 + 17);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getSize()).isEqualTo(content.size());
+      assertThat(ByteStreams.toByteArray(blob.getPayload().openStream())).isEqualTo(content.read());
+   }
+
+   @Test
+   public void testIdenticalBlobsOutliveEachOther() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 3 * 1024 * 1024 + 5);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "1");
+      assertThat(ByteStreams.toByteArray(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getPayload()
+            .openStream())).isEqualTo(content.read());
+   }
+
+   @Test
+   public void testCountBlobsInDirectory() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      for (String key : new String[] { "dir/a", "dir/sub/b", "dir/sub/c", "dir2/d", "e" }) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload("data").build());
+      }
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(5);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir")))
+            .isEqualTo(1);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("dir").recursive())).isEqualTo(3);
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME))
+            .containsExactly("dir/a", "dir/sub/b", "dir/sub/c", "dir2/d", "e");
+   }
+
    @Test
    public void testRemoveBlob() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -186,6 +231,46 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.getBlobAccess(CONTAINER_NAME, BLOB_NAME)).isEqualTo(BlobAccess.PRIVATE);
    }
 
+   @Test
+   public void testCachedMetadataFollowsWrites() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      assertThat(storageStrategy.getContainerAccess(CONTAINER_NAME)).isEqualTo(ContainerAccess.PRIVATE);
+      storageStrategy.setContainerAccess(CONTAINER_NAME, ContainerAccess.PUBLIC_READ);
+      assertThat(storageStrategy.getContainerAccess(CONTAINER_NAME)).isEqualTo(ContainerAccess.PUBLIC_READ);
+
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(getByteArray('a', 16)).build());
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getMetadata().getSize()).isEqualTo(16L);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(getByteArray('b', 32)).build());
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getMetadata().getSize()).isEqualTo(32L);
+
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME)).isNull();
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      assertThat(storageStrategy.getContainerAccess(CONTAINER_NAME)).isEqualTo(ContainerAccess.PRIVATE);
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME)).isNull();
+   }
+
+   @Test
+   public void testCachedBlobIsReadableInALaterUnitOfWork() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      byte[] content = getByteArray('a', 16);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content)
+            .userMetadata(ImmutableMap.of("key", "value")).build());
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME)).isNotNull();
+
+      // Ends the persistence context the cached blob was loaded in
+      injector.getInstance(UnitOfWork.class).end();
+
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getUserMetadata()).isEqualTo(ImmutableMap.of("key", "value"));
+      InputStream is = blob.getPayload().openStream();
+      try {
+         assertThat(ByteStreams.toByteArray(is)).isEqualTo(content);
+      } finally {
+         is.close();
+      }
+   }
+
    @Test
    public void testClearContainer() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -203,7 +288,7 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
    }
 
-    private byte[] getByteArray(char c, int len) {
+    protected byte[] getByteArray(char c, int len) {
         byte[] array = new byte[len];
         Arrays.fill(array, (byte) c);
         return array;